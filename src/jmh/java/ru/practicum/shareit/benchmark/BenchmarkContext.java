@@ -0,0 +1,168 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+//Поднимает слой JPA на H2 в памяти и заполняет БД тестовыми данными
+public final class BenchmarkContext {
+
+    public static final long OWNER_ID = 1L;
+    public static final long BOOKER_ID = 2L;
+
+    public static final int USERS = 1_000;
+    public static final int ITEMS = 10_000;
+    private static final int BATCH_SIZE = 10_000;
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(int bookings) {
+        return start(bookings, ITEMS);
+    }
+
+    public static ConfigurableApplicationContext start(int bookings, int items) {
+        return run(bookings, items,
+                "--spring.jpa.show-sql=false",
+                "--spring.main.web-application-type=none",
+                "--logging.level.root=WARN");
+    }
+
+    //Полное приложение с HTTP на случайном порту, логирование и show-sql остаются как в выбранном профиле
+    public static ConfigurableApplicationContext startServer(int bookings, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--shareit.rate-limit.enabled=false"));
+        args.addAll(List.of(properties));
+
+        return run(bookings, ITEMS, args.toArray(String[]::new));
+    }
+
+    private static ConfigurableApplicationContext run(int bookings, int items, String... properties) {
+        //Аргументы командной строки имеют приоритет над application.properties
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:bench" + System.nanoTime() + ";MODE=PostgreSQL",
+                "--spring.datasource.driverClassName=org.h2.Driver",
+                "--spring.sql.init.platform=h2"));
+        args.addAll(List.of(properties));
+
+        ConfigurableApplicationContext context = SpringApplication.run(ShareItApp.class, args.toArray(String[]::new));
+
+        seed(context.getBean(JdbcTemplate.class), bookings, items);
+
+        //Поисковый индекс строится при старте, до заполнения БД
+        context.getBean(ItemSearchIndex.class).rebuild();
+
+        return context;
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, int bookings, int itemCount) {
+        List<Object[]> users = new ArrayList<>();
+
+        for (long id = 1; id <= USERS; id++) {
+            users.add(new Object[]{id, "user" + id, "user" + id + "@mail.ru"});
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO users (user_id, name, email) VALUES (?, ?, ?)", users);
+
+        //Каждая сотая вещь принадлежит владельцу, для которого замеряются запросы
+        List<Object[]> items = new ArrayList<>();
+
+        for (long id = 1; id <= itemCount; id++) {
+            long ownerId = id % 100 == 0 ? OWNER_ID : 3 + id % (USERS - 2);
+            items.add(new Object[]{id, "item" + id, "description of item " + id, ownerId, id % 10 != 0});
+
+            if (items.size() == BATCH_SIZE) {
+                insertItems(jdbcTemplate, items);
+                items.clear();
+            }
+        }
+
+        insertItems(jdbcTemplate, items);
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime base = now.minusYears(1);
+        String[] statuses = {"WAITING", "APPROVED", "REJECTED", "APPROVED"};
+        List<Object[]> batch = new ArrayList<>();
+
+        for (long id = 1; id <= bookings; id++) {
+            LocalDateTime start = base.plusMinutes(id * 30);
+            long bookerId = id % 50 == 0 ? BOOKER_ID : 3 + id % (USERS - 2);
+
+            LocalDateTime end = start.plusMinutes(20);
+
+            batch.add(new Object[]{id, Timestamp.valueOf(start), Timestamp.valueOf(end),
+                    1 + id % itemCount, bookerId, statuses[(int) (id % statuses.length)],
+                    Booking.Phase.of(start, end, now).name()});
+
+            if (batch.size() == BATCH_SIZE) {
+                insertBookings(jdbcTemplate, batch);
+                batch.clear();
+            }
+        }
+
+        insertBookings(jdbcTemplate, batch);
+    }
+
+    //Дополнительные вещи владельца с идентификаторами после основного набора
+    public static void addItems(JdbcTemplate jdbcTemplate, long firstId, int count, long ownerId) {
+        List<Object[]> items = new ArrayList<>();
+
+        for (long id = firstId; id < firstId + count; id++) {
+            items.add(new Object[]{id, "item" + id, "description of item " + id, ownerId, true});
+
+            if (items.size() == BATCH_SIZE) {
+                insertItems(jdbcTemplate, items);
+                items.clear();
+            }
+        }
+
+        insertItems(jdbcTemplate, items);
+    }
+
+    public static void addUser(JdbcTemplate jdbcTemplate, long userId) {
+        jdbcTemplate.update("INSERT INTO users (user_id, name, email) VALUES (?, ?, ?)",
+                userId, "user" + userId, "user" + userId + "@mail.ru");
+    }
+
+    //Подтвержденные бронирования одной вещи одним пользователем, каждые два часа начиная с firstStart
+    public static void addBookings(JdbcTemplate jdbcTemplate, long itemId, long bookerId, int count,
+                                   LocalDateTime firstStart) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(booking_id), 0) FROM bookings", Long.class);
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batch = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = firstStart.plusHours(i * 2L);
+            LocalDateTime end = start.plusHours(1);
+
+            batch.add(new Object[]{maxId + 1 + i, Timestamp.valueOf(start), Timestamp.valueOf(end), itemId, bookerId,
+                    "APPROVED", Booking.Phase.of(start, end, now).name()});
+
+            if (batch.size() == BATCH_SIZE) {
+                insertBookings(jdbcTemplate, batch);
+                batch.clear();
+            }
+        }
+
+        insertBookings(jdbcTemplate, batch);
+    }
+
+    private static void insertItems(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO items (item_id, name, description, owner_id, is_available) " +
+                "VALUES (?, ?, ?, ?, ?)", batch);
+    }
+
+    private static void insertBookings(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO bookings (booking_id, start_date, end_date, item_id, booker_id, status, phase) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+    }
+}
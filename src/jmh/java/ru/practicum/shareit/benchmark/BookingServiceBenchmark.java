@@ -0,0 +1,102 @@
+package ru.practicum.shareit.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int bookings;
+
+    //Вещи сверх сотни из основного набора добавляются владельцу без бронирований, объем ответа не меняется
+    @Param({"100", "1000", "10000"})
+    private int itemsPerOwner;
+
+    @Param({"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"})
+    private String state;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private ItemService itemService;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(bookings);
+        bookingService = context.getBean(BookingService.class);
+        itemService = context.getBean(ItemService.class);
+        entityManager = context.getBean(EntityManager.class);
+
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+
+        int ownerItems = BenchmarkContext.ITEMS / 100;
+
+        if (itemsPerOwner > ownerItems) {
+            BenchmarkContext.addItems(context.getBean(JdbcTemplate.class),
+                    BenchmarkContext.ITEMS + 1, itemsPerOwner - ownerItems, BenchmarkContext.OWNER_ID);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BookingDto> getAllBookingsByOwner() {
+        return bookingService.getAllBookingsByOwner(state, Optional.of(BenchmarkContext.OWNER_ID));
+    }
+
+    //Прежняя реализация: загрузка вещей владельца, множество их id и запрос бронирований с IN (?1)
+    @Benchmark
+    public List<BookingDto> getAllBookingsByOwnerItemIds() {
+        return transactionTemplate.execute(status -> {
+            List<Item> items = itemService.getAllItemsByOwnerId(Optional.of(BenchmarkContext.OWNER_ID));
+            Set<Long> itemsId = items.stream().map(Item::getId).collect(Collectors.toSet());
+
+            return BookingMapper.INSTANCE.toBooksDto(findByItemIds(itemsId));
+        });
+    }
+
+    private List<Booking> findByItemIds(Set<Long> itemsId) {
+        String select = "SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE i.id IN ?1";
+        String order = " ORDER BY b.start ASC";
+
+        TypedQuery<Booking> query = switch (state) {
+            case "CURRENT", "PAST", "FUTURE" -> entityManager
+                    .createQuery(select + " AND b.phase = ?2" + order, Booking.class)
+                    .setParameter(2, Booking.Phase.valueOf(state));
+            case "WAITING", "REJECTED" -> entityManager
+                    .createQuery(select + " AND b.status = ?2" + order, Booking.class)
+                    .setParameter(2, Booking.Status.valueOf(state));
+            default -> entityManager.createQuery(select + order, Booking.class);
+        };
+
+        return query.setParameter(1, itemsId).getResultList();
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+//Проверка права оставить отзыв: запрос exists против прежней загрузки всей истории бронирований пользователя
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommentEligibilityBenchmark {
+
+    private static final long AUTHOR_ID = BenchmarkContext.USERS + 1;
+    private static final long ITEM_ID = 1L;
+
+    @Param({"10", "1000", "10000", "100000"})
+    private int history;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(100_000);
+        bookingService = context.getBean(BookingService.class);
+
+        //Вся история завершена, поэтому прежняя проверка проходит по каждому бронированию
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        BenchmarkContext.addUser(jdbcTemplate, AUTHOR_ID);
+        BenchmarkContext.addBookings(jdbcTemplate, ITEM_ID, AUTHOR_ID, history,
+                LocalDateTime.now().minusHours(history * 2L + 1));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean existsQuery() {
+        return bookingService.hasFinishedBooking(AUTHOR_ID, ITEM_ID, LocalDateTime.now());
+    }
+
+    //Прежняя реализация addComment: все бронирования пользователя и проверка окончания каждого
+    @Benchmark
+    public boolean bookerHistoryScan() {
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingDto> bookings = bookingService.getAllBookingsByBooker(Optional.of(AUTHOR_ID));
+
+        if (bookings.isEmpty()) {
+            return false;
+        }
+
+        for (BookingDto booking : bookings) {
+            if (booking.getEnd().isAfter(now)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.benchmark;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+
+//Копия Booking с прежней стратегией IDENTITY для InsertBenchmark
+@Getter
+@Setter
+@Entity
+@Table(name = "bench_identity_bookings")
+public class IdentityBooking {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "booking_id")
+    private Long id;
+
+    @Column(name = "start_date")
+    private LocalDateTime start;
+
+    @Column(name = "end_date")
+    private LocalDateTime end;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id")
+    private Item item;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booker_id")
+    private User booker;
+
+    @Enumerated(EnumType.STRING)
+    private Booking.Status status;
+
+    @Enumerated(EnumType.STRING)
+    private Booking.Phase phase;
+
+    @Version
+    private Long version;
+}
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.benchmark;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+
+//Копия Comment с прежней стратегией IDENTITY для InsertBenchmark
+@Getter
+@Setter
+@Entity
+@Table(name = "bench_identity_comments")
+public class IdentityComment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "comment_id")
+    private Long id;
+
+    private String text;
+
+    private LocalDateTime created;
+
+    @Column(name = "author_name")
+    private String authorName;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id")
+    private Item item;
+}
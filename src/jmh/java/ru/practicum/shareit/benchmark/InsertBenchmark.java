@@ -0,0 +1,134 @@
+package ru.practicum.shareit.benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+//Вставка бронирований и отзывов: последовательности pooled-lo с пакетами по 50 против прежней стратегии IDENTITY
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertBenchmark {
+
+    //Число вставок в одной транзакции, одна операция бенчмарка — одна транзакция
+    @Param({"1", "50", "1000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(10_000);
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        //Основной набор вставлен с явными id, последовательность сдвигается за них
+        Long maxBookingId = jdbcTemplate.queryForObject("SELECT MAX(booking_id) FROM bookings", Long.class);
+        jdbcTemplate.execute("ALTER SEQUENCE bookings_seq RESTART WITH " + (maxBookingId + 1));
+
+        //Таблицы с прежними столбцами GENERATED BY DEFAULT AS IDENTITY
+        jdbcTemplate.execute("CREATE TABLE bench_identity_bookings (" +
+                "booking_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "start_date TIMESTAMP WITHOUT TIME ZONE, end_date TIMESTAMP WITHOUT TIME ZONE, " +
+                "item_id BIGINT REFERENCES items(item_id), booker_id BIGINT REFERENCES users(user_id), " +
+                "status VARCHAR(15), phase VARCHAR(10), version BIGINT DEFAULT 0 NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE bench_identity_comments (" +
+                "comment_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "text VARCHAR(250), created TIMESTAMP WITHOUT TIME ZONE, author_name VARCHAR(50), " +
+                "item_id BIGINT REFERENCES items(item_id))");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void insertBookingsPooled() {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+            for (int i = 0; i < rows; i++) {
+                Booking booking = new Booking();
+                booking.setStart(start);
+                booking.setEnd(start.plusHours(1));
+                booking.setItem(entityManager.getReference(Item.class, itemId(i)));
+                booking.setBooker(entityManager.getReference(User.class, BenchmarkContext.BOOKER_ID));
+                booking.setStatus(Booking.Status.WAITING);
+                booking.setPhase(Booking.Phase.FUTURE);
+                entityManager.persist(booking);
+            }
+        });
+    }
+
+    @Benchmark
+    public void insertBookingsIdentity() {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+            for (int i = 0; i < rows; i++) {
+                IdentityBooking booking = new IdentityBooking();
+                booking.setStart(start);
+                booking.setEnd(start.plusHours(1));
+                booking.setItem(entityManager.getReference(Item.class, itemId(i)));
+                booking.setBooker(entityManager.getReference(User.class, BenchmarkContext.BOOKER_ID));
+                booking.setStatus(Booking.Status.WAITING);
+                booking.setPhase(Booking.Phase.FUTURE);
+                entityManager.persist(booking);
+            }
+        });
+    }
+
+    @Benchmark
+    public void insertCommentsPooled() {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+
+            for (int i = 0; i < rows; i++) {
+                Comment comment = new Comment();
+                comment.setText("comment " + i);
+                comment.setCreated(now);
+                comment.setAuthorName("user" + BenchmarkContext.BOOKER_ID);
+                comment.setItem(entityManager.getReference(Item.class, itemId(i)));
+                entityManager.persist(comment);
+            }
+        });
+    }
+
+    @Benchmark
+    public void insertCommentsIdentity() {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+
+            for (int i = 0; i < rows; i++) {
+                IdentityComment comment = new IdentityComment();
+                comment.setText("comment " + i);
+                comment.setCreated(now);
+                comment.setAuthorName("user" + BenchmarkContext.BOOKER_ID);
+                comment.setItem(entityManager.getReference(Item.class, itemId(i)));
+                entityManager.persist(comment);
+            }
+        });
+    }
+
+    private static long itemId(int i) {
+        return 1 + i % BenchmarkContext.ITEMS;
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+//Поиск вещей: триграммный индекс против прежнего запроса LIKE по названию и описанию
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemSearchBenchmark {
+
+    //Прежний запрос из ItemRepository, скобки вокруг OR добавлены, чтобы результаты совпадали с индексом
+    private static final String LIKE_QUERY = "select i from Item i " +
+            "where i.available = true AND (upper(i.name) like upper(concat('%', ?1, '%')) " +
+            " or upper(i.description) like upper(concat('%', ?1, '%')))";
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10000", "1000000"})
+    private int items;
+
+    //Редкая подстрока и подстрока, которая есть в описании каждой вещи
+    @Param({"item 12", "description"})
+    private String text;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private EntityManager entityManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(10_000, items);
+        itemService = context.getBean(ItemService.class);
+        entityManager = context.getBean(EntityManager.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ItemDto> trigramIndex() {
+        return itemService.searchItems(Optional.of(BenchmarkContext.BOOKER_ID), text, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Item> likeQuery() {
+        return entityManager.createQuery(LIKE_QUERY, Item.class)
+                .setParameter(1, text)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+    }
+}
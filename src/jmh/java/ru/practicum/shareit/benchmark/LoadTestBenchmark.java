@@ -0,0 +1,84 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//Нагрузочный замер через HTTP: пропускная способность и перцентили задержки GET /items/{itemId}
+//256 клиентских потоков JMH больше пула Tomcat из 200 потоков платформы
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(256)
+@Fork(1)
+public class LoadTestBenchmark {
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    //default пишет журнал и SQL в консоль синхронно, prod — через AsyncAppender с выборкой GET-запросов
+    @Param({"default", "prod"})
+    private String profile;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setUp() throws FileNotFoundException {
+        //Вывод приложения пишется в файл, а не пересылается в консоль JMH
+        stdout = System.out;
+        System.setOut(new PrintStream(new FileOutputStream("target/load-test-stdout.log"), false));
+
+        context = BenchmarkContext.startServer(100_000,
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.profiles.active=" + profile);
+
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        httpClient.close();
+
+        System.out.close();
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public int getItem() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long itemId = 1 + random.nextInt(BenchmarkContext.ITEMS);
+        long userId = 1 + random.nextInt(BenchmarkContext.USERS);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/items/" + itemId))
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .GET()
+                .build();
+
+        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Неожиданный код ответа: " + response.statusCode());
+        }
+
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private List<Booking> bookings;
+    private List<Item> items;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bookings = new ArrayList<>();
+        items = new ArrayList<>();
+
+        LocalDateTime now = LocalDateTime.now();
+
+        for (long id = 1; id <= size; id++) {
+            User user = new User();
+            user.setId(id);
+            user.setName("user" + id);
+            user.setEmail("user" + id + "@mail.ru");
+
+            Item item = new Item();
+            item.setId(id);
+            item.setName("item" + id);
+            item.setDescription("description of item " + id);
+            item.setAvailable(true);
+            item.setOwner(user);
+            items.add(item);
+
+            Booking booking = new Booking();
+            booking.setId(id);
+            booking.setStart(now.plusHours(id));
+            booking.setEnd(now.plusHours(id + 1));
+            booking.setItem(item);
+            booking.setBooker(user);
+            booking.setStatus(Booking.Status.APPROVED);
+            bookings.add(booking);
+        }
+    }
+
+    @Benchmark
+    public List<BookingDto> bookingsToDto() {
+        return BookingMapper.INSTANCE.toBooksDto(bookings);
+    }
+
+    @Benchmark
+    public List<ItemDto> itemsToDto() {
+        return ItemMapper.INSTANCE.toListDto(items);
+    }
+}
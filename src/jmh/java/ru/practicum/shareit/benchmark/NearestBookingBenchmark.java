@@ -0,0 +1,77 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+//Последнее и ближайшее бронирование вещи: агрегатные запросы к БД против прежнего перебора всех бронирований в памяти
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NearestBookingBenchmark {
+
+    private static final long ITEM_ID = BenchmarkContext.ITEMS + 1;
+
+    @Param({"10", "1000", "10000", "100000"})
+    private int bookingsPerItem;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(100_000);
+        bookingService = context.getBean(BookingService.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        BenchmarkContext.addItems(jdbcTemplate, ITEM_ID, 1, BenchmarkContext.OWNER_ID);
+
+        //Половина бронирований в прошлом, половина в будущем
+        BenchmarkContext.addBookings(jdbcTemplate, ITEM_ID, BenchmarkContext.BOOKER_ID, bookingsPerItem,
+                LocalDateTime.now().minusHours(bookingsPerItem));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void aggregateQueries(Blackhole blackhole) {
+        LocalDateTime now = LocalDateTime.now();
+
+        blackhole.consume(bookingService.getLastBookingEnd(ITEM_ID, now));
+        blackhole.consume(bookingService.getNextBookingStart(ITEM_ID, now));
+    }
+
+    //Прежняя реализация getItemWithTimeAndComments: загрузка всех бронирований вещи и два прохода по списку
+    @Benchmark
+    public void inMemoryScan(Blackhole blackhole) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings = bookingService.getAllBookingsByItem(ITEM_ID);
+
+        Optional<LocalDateTime> lastBooking = bookings.stream()
+                .map(Booking::getEnd)
+                .filter(end -> end.isBefore(now))
+                .max(LocalDateTime::compareTo);
+
+        Optional<LocalDateTime> nextBooking = bookings.stream()
+                .map(Booking::getStart)
+                .filter(start -> start.isAfter(now))
+                .min(LocalDateTime::compareTo);
+
+        blackhole.consume(lastBooking);
+        blackhole.consume(nextBooking);
+    }
+}
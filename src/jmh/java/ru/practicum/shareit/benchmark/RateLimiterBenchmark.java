@@ -0,0 +1,47 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.config.RateLimitProperties;
+import ru.practicum.shareit.config.UserRateLimiter;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//Накладные расходы лимитера на один запрос, в том числе при конкурентном доступе к одной корзине
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "10000"})
+    private int clients;
+
+    private UserRateLimiter rateLimiter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        //Лимит заведомо не достигается, замеряется путь разрешенного запроса
+        RateLimitProperties properties = new RateLimitProperties(true, 100_000, Duration.ofMinutes(10), 500, 50,
+                Map.of("default", new RateLimitProperties.Limit(1_000_000_000, 1_000_000_000)));
+
+        rateLimiter = new UserRateLimiter(properties);
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        long userId = ThreadLocalRandom.current().nextLong(clients);
+
+        return rateLimiter.tryAcquire(UserRateLimiter.EndpointClass.DEFAULT, userId);
+    }
+
+    @Benchmark
+    public UserRateLimiter.EndpointClass classify() {
+        return UserRateLimiter.classify("GET", "/bookings/owner");
+    }
+}
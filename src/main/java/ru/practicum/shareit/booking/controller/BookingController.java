@@ -1,8 +1,16 @@
 package ru.practicum.shareit.booking.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResult;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPage;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.service.BookingService;
 
@@ -21,6 +29,18 @@ public class BookingController {
         return bookingService.addBooking(booking, optionalUserId);
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchResult> addBookings(@RequestBody List<Booking> bookings,
+                                                @RequestHeader(headerName) Optional<Long> optionalUserId) {
+        return bookingService.addBookings(bookings, optionalUserId);
+    }
+
+    @PatchMapping("/batch")
+    public List<BookingBatchResult> approveBookings(@RequestBody List<BookingApprovalDto> decisions,
+                                                    @RequestHeader(headerName) Optional<Long> optionalUserId) {
+        return bookingService.approveBookings(decisions, optionalUserId);
+    }
+
     @PatchMapping("/{bookingId}")
     public Booking isApprovedBooking(@PathVariable Long bookingId, @RequestParam Boolean approved,
                                      @RequestHeader(headerName) Optional<Long> optionalUserId) {
@@ -28,11 +48,24 @@ public class BookingController {
     }
 
     @GetMapping("/{bookingId}")
-    public BookingDto getBookingById(@PathVariable Long bookingId) {
+    public BookingDto getBookingById(@PathVariable Long bookingId, WebRequest request) {
+        //Если бронирование не менялось, отвечаем 304 без загрузки и сериализации
+        if (request.checkNotModified(bookingService.getBookingETag(bookingId))) {
+            return null;
+        }
+
         return bookingService.getBookingById(bookingId);
     }
 
-    @GetMapping(params = "state")
+    @GetMapping(params = "limit")
+    public BookingPage getBookingsPageByBooker(@RequestParam(defaultValue = "ALL") String state,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam Integer limit,
+                                               @RequestHeader(headerName) Optional<Long> optionalBookerId) {
+        return bookingService.getBookingsPageByBooker(state, optionalBookerId, cursor, limit);
+    }
+
+    @GetMapping(params = {"state", "!limit"})
     public List<BookingDto> getAllBookingsByBooker(@RequestParam String state, @RequestHeader(headerName) Optional<Long> optionalBookerId) {
         return bookingService.getAllBookingsByBooker(state, optionalBookerId);
     }
@@ -42,7 +75,20 @@ public class BookingController {
         return bookingService.getAllBookingsByBooker(optionalBookerId);
     }
 
-    @GetMapping(path = "/owner", params = "state")
+    @GetMapping("/owner/summary")
+    public BookingSummaryDto getOwnerSummary(@RequestHeader(headerName) Optional<Long> optionalOwnerId) {
+        return bookingService.getOwnerSummary(optionalOwnerId);
+    }
+
+    @GetMapping(path = "/owner", params = "limit")
+    public BookingPage getBookingsPageByOwner(@RequestParam(defaultValue = "ALL") String state,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam Integer limit,
+                                              @RequestHeader(headerName) Optional<Long> optionalOwnerId) {
+        return bookingService.getBookingsPageByOwner(state, optionalOwnerId, cursor, limit);
+    }
+
+    @GetMapping(path = "/owner", params = {"state", "!limit"})
     public List<BookingDto> getAllBookingsByOwner(@RequestParam String state, @RequestHeader(headerName) Optional<Long> optionalOwnerId) {
         return bookingService.getAllBookingsByOwner(state, optionalOwnerId);
     }
@@ -51,4 +97,18 @@ public class BookingController {
     public List<BookingDto> getAllBookingsByOwner(@RequestHeader(headerName) Optional<Long> optionalOwnerId) {
         return bookingService.getAllBookingsByOwner(optionalOwnerId);
     }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBookingsByBooker(@RequestHeader(headerName) Optional<Long> optionalBookerId) {
+        StreamingResponseBody body = outputStream -> bookingService.exportBookingsByBooker(optionalBookerId, outputStream);
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportBookingsByOwner(@RequestHeader(headerName) Optional<Long> optionalOwnerId) {
+        StreamingResponseBody body = outputStream -> bookingService.exportBookingsByOwner(optionalOwnerId, outputStream);
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
 }
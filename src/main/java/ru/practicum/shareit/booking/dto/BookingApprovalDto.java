@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+
+@Data
+public class BookingApprovalDto {
+    private Long bookingId;
+    private Boolean approved;
+}
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+
+@Data
+public class BookingBatchResult {
+    private Integer index;
+    private BookingDto booking;
+    private String error;
+}
@@ -2,8 +2,8 @@ package ru.practicum.shareit.booking.dto;
 
 import lombok.Data;
 import ru.practicum.shareit.booking.model.Booking;
-import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.dto.UserShortDto;
 
 import java.time.LocalDateTime;
 
@@ -13,6 +13,6 @@ public class BookingDto {
     private LocalDateTime start;
     private LocalDateTime end;
     private Booking.Status status;
-    private Item item;
-    private User booker;
+    private ItemDto item;
+    private UserShortDto booker;
 }
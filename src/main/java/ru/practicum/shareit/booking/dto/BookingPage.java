@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BookingPage {
+    private List<BookingDto> bookings;
+    private String nextCursor;
+}
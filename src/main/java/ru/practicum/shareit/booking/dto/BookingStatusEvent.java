@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.LocalDateTime;
+
+public record BookingStatusEvent(Long bookingId,
+                                 Long itemId,
+                                 Long bookerId,
+                                 Booking.Status status,
+                                 LocalDateTime start,
+                                 LocalDateTime end) {
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+
+@Data
+public class BookingSummaryDto {
+    private Long total;
+    private Long waiting;
+    private Long current;
+    private Long future;
+    private Long past;
+    private Long rejected;
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.dto;
+
+public interface BookingVersion {
+    Long getBookingVersion();
+
+    Long getItemVersion();
+
+    Long getBookerVersion();
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.dto;
+
+public interface OwnerBookingCounts {
+    Long getOwnerId();
+
+    Long getTotal();
+
+    Long getWaiting();
+
+    Long getRejected();
+
+    Long getCurrent();
+
+    Long getFuture();
+
+    Long getPast();
+}
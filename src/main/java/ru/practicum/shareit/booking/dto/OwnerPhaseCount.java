@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.model.Booking;
+
+public interface OwnerPhaseCount {
+    Long getOwnerId();
+
+    Booking.Phase getPhase();
+
+    Long getCount();
+}
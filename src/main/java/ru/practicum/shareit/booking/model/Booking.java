@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 import ru.practicum.shareit.item.model.Item;
@@ -13,7 +14,8 @@ import java.time.LocalDateTime;
 public class Booking {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     @Column(name = "booking_id")
     private Long id;
 
@@ -23,26 +25,50 @@ public class Booking {
     @Column(name = "end_date")
     private LocalDateTime end;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id")
     private Item item;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booker_id")
     private User booker;
 
     @Enumerated(EnumType.STRING)
     private Status status;
 
+    //Фаза относительно текущего времени, поддерживается BookingPhaseSweeper
+    @JsonIgnore
+    @Enumerated(EnumType.STRING)
+    private Phase phase;
+
     @Transient
     private Long itemId;
 
+    //Версия строки для ETag и оптимистической блокировки
+    @JsonIgnore
+    @Version
+    private Long version;
+
     public enum Status {
         WAITING,
         APPROVED,
         REJECTED,
         CANCELED
     }
+
+    public enum Phase {
+        FUTURE,
+        CURRENT,
+        PAST;
+
+        public static Phase of(LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+            if (!end.isAfter(now)) {
+                return PAST;
+            }
+
+            return start.isAfter(now) ? FUTURE : CURRENT;
+        }
+    }
 }
 
 
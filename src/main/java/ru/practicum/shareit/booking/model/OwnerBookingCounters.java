@@ -0,0 +1,35 @@
+package ru.practicum.shareit.booking.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import ru.practicum.shareit.booking.dto.OwnerBookingCounts;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "owner_booking_counters")
+public class OwnerBookingCounters implements OwnerBookingCounts {
+
+    @Id
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    @Column(name = "total_count")
+    private Long total;
+
+    @Column(name = "waiting_count")
+    private Long waiting;
+
+    @Column(name = "rejected_count")
+    private Long rejected;
+
+    @Column(name = "current_count")
+    private Long current;
+
+    @Column(name = "future_count")
+    private Long future;
+
+    @Column(name = "past_count")
+    private Long past;
+}
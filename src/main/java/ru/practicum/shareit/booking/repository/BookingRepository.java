@@ -1,55 +1,158 @@
 package ru.practicum.shareit.booking.repository;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingVersion;
+import ru.practicum.shareit.booking.dto.ItemBookingDates;
+import ru.practicum.shareit.booking.dto.OwnerPhaseCount;
 import ru.practicum.shareit.booking.model.Booking;
 
-import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Set;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
-    @Query("SELECT b FROM Booking b WHERE b.item.id =?1")
-    List<Booking> findByItemId(Long itemId);
+    @Override
+    @EntityGraph(attributePaths = {"item", "item.owner", "booker"})
+    Optional<Booking> findById(Long bookingId);
 
-    @Query("SELECT b FROM Booking b WHERE b.booker.id = ?1 ORDER BY b.start ASC")
-    List<Booking> findAllByBookerId(Long userId);
+    @Query("SELECT b.item.id FROM Booking b WHERE b.id = ?1")
+    Optional<Long> findItemIdById(Long bookingId);
 
-    @Query("SELECT b FROM Booking b WHERE b.booker.id = ?1 AND b.start > ?2 AND b.end < ?2 ORDER BY b.start ASC")
-    List<Booking> findAllByBookerWithCurrentState(Long userId, Instant now);
+    @Query("SELECT b.version AS bookingVersion, i.version AS itemVersion, u.version AS bookerVersion " +
+            "FROM Booking b JOIN b.item i JOIN b.booker u WHERE b.id = ?1")
+    Optional<BookingVersion> findVersionById(Long bookingId);
 
-    @Query("SELECT b FROM Booking b WHERE b.booker.id = ?1 AND b.end > ?2 ORDER BY b.start ASC")
-    List<Booking> findAllByBookerWithPastState(Long userId, Instant now);
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE b.id IN ?1")
+    List<Booking> findAllWithItemByIdIn(Collection<Long> bookingIds);
 
-    @Query("SELECT b FROM Booking b WHERE b.booker.id = ?1 AND b.start > ?2 ORDER BY b.start ASC")
-    List<Booking> findAllByBookerWithFutureState(Long userId, Instant now);
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE i.id = ?1")
+    List<Booking> findByItemId(Long itemId);
 
-    @Query("SELECT b FROM Booking b WHERE b.booker.id = ?1 AND b.status = 'WAITING' ORDER BY b.start ASC")
-    List<Booking> findAllByBookerWithWaitingState(Long userId);
+    @Query("SELECT CASE WHEN COUNT(b) > 0 THEN true ELSE false END FROM Booking b WHERE b.item.id = ?1 AND b.id <> ?4 " +
+            "AND b.status IN ?5 AND b.start < ?3 AND b.end > ?2")
+    boolean existsOverlapping(Long itemId, LocalDateTime start, LocalDateTime end, Long excludedBookingId,
+                              List<Booking.Status> statuses);
 
-    @Query("SELECT b FROM Booking b WHERE b.booker.id = ?1 AND b.status = 'REJECTED' ORDER BY b.start ASC")
-    List<Booking> findAllByBookerWithRejectedState(Long userId);
+    boolean existsByBookerIdAndItemIdAndStatusAndEndBefore(Long bookerId, Long itemId, Booking.Status status,
+                                                          LocalDateTime now);
 
-    @Query("SELECT b FROM Booking b WHERE b.item.id IN ?1 ORDER BY b.start ASC")
-    List<Booking> findAllByOwnerId(Set<Long> itemsId);
+    @Query("SELECT b.start AS start, b.end AS end FROM Booking b " +
+            "WHERE b.item.id = ?1 AND b.status = 'APPROVED' ORDER BY b.start ASC")
+    List<BookingInterval> findApprovedIntervalsByItemId(Long itemId);
 
-    @Query("SELECT b FROM Booking b WHERE b.item.id IN ?1 AND b.start > ?2 AND b.end < ?2 ORDER BY b.start ASC")
-    List<Booking> findAllByOwnerWithCurrentState(Set<Long> itemsId, Instant now);
+    @Query("SELECT MAX(b.end) FROM Booking b WHERE b.item.id = ?1 AND b.end < ?2")
+    LocalDateTime findLastBookingEndByItemId(Long itemId, LocalDateTime now);
 
-    @Query("SELECT b FROM Booking b WHERE b.item.id IN ?1 AND b.end > ?2 ORDER BY b.start ASC")
-    List<Booking> findAllByOwnerWithPastState(Set<Long> itemsId, Instant now);
+    @Query("SELECT MIN(b.start) FROM Booking b WHERE b.item.id = ?1 AND b.start > ?2")
+    LocalDateTime findNextBookingStartByItemId(Long itemId, LocalDateTime now);
 
-    @Query("SELECT b FROM Booking b WHERE b.item.id IN ?1 AND b.start > ?2 ORDER BY b.start ASC")
-    List<Booking> findAllByOwnerWithFutureState(Set<Long> itemsId, Instant now);
+    @Query("SELECT b.item.id AS itemId, " +
+            "MAX(CASE WHEN b.end < ?2 THEN b.end END) AS lastBooking, " +
+            "MIN(CASE WHEN b.start > ?2 THEN b.start END) AS nextBooking " +
+            "FROM Booking b WHERE b.item.owner.id = ?1 GROUP BY b.item.id")
+    List<ItemBookingDates> findBookingDatesByOwnerId(Long ownerId, LocalDateTime now);
 
-    @Query("SELECT b FROM Booking b WHERE b.item.id IN ?1 AND b.status = 'WAITING' ORDER BY b.start ASC")
-    List<Booking> findAllByOwnerWithWaitingState(Set<Long> itemsId);
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE b.booker.id = ?1 ORDER BY b.start ASC")
+    List<Booking> findAllByBookerId(Long userId);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE b.booker.id = ?1 AND b.phase = ?2 ORDER BY b.start ASC")
+    List<Booking> findAllByBookerWithPhase(Long userId, Booking.Phase phase);
 
-    @Query("SELECT b FROM Booking b WHERE b.item.id IN ?1 AND b.status = 'REJECTED' ORDER BY b.start ASC")
-    List<Booking> findAllByOwnerWithRejectedState(Set<Long> itemsId);
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE b.booker.id = ?1 AND b.status = 'WAITING' ORDER BY b.start ASC")
+    List<Booking> findAllByBookerWithWaitingState(Long userId);
 
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE b.booker.id = ?1 AND b.status = 'REJECTED' ORDER BY b.start ASC")
+    List<Booking> findAllByBookerWithRejectedState(Long userId);
 
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE i.owner.id = ?1 ORDER BY b.start ASC")
+    List<Booking> findAllByOwnerId(Long ownerId);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE i.owner.id = ?1 AND b.phase = ?2 ORDER BY b.start ASC")
+    List<Booking> findAllByOwnerWithPhase(Long ownerId, Booking.Phase phase);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE i.owner.id = ?1 AND b.status = 'WAITING' ORDER BY b.start ASC")
+    List<Booking> findAllByOwnerWithWaitingState(Long ownerId);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE i.owner.id = ?1 AND b.status = 'REJECTED' ORDER BY b.start ASC")
+    List<Booking> findAllByOwnerWithRejectedState(Long ownerId);
+
+    //Постраничное получение бронирований по курсору (start, id) без использования OFFSET
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE b.booker.id = ?1 AND " +
+            "(b.start > ?2 OR (b.start = ?2 AND b.id > ?3)) ORDER BY b.start ASC, b.id ASC")
+    List<Booking> findPageByBookerId(Long bookerId, LocalDateTime cursorStart, Long cursorId, Limit limit);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE b.booker.id = ?1 AND b.phase = ?2 AND " +
+            "(b.start > ?3 OR (b.start = ?3 AND b.id > ?4)) ORDER BY b.start ASC, b.id ASC")
+    List<Booking> findPageByBookerWithPhase(Long bookerId, Booking.Phase phase, LocalDateTime cursorStart, Long cursorId, Limit limit);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE b.booker.id = ?1 AND b.status = 'WAITING' AND " +
+            "(b.start > ?2 OR (b.start = ?2 AND b.id > ?3)) ORDER BY b.start ASC, b.id ASC")
+    List<Booking> findPageByBookerWithWaitingState(Long bookerId, LocalDateTime cursorStart, Long cursorId, Limit limit);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE b.booker.id = ?1 AND b.status = 'REJECTED' AND " +
+            "(b.start > ?2 OR (b.start = ?2 AND b.id > ?3)) ORDER BY b.start ASC, b.id ASC")
+    List<Booking> findPageByBookerWithRejectedState(Long bookerId, LocalDateTime cursorStart, Long cursorId, Limit limit);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE i.owner.id = ?1 AND " +
+            "(b.start > ?2 OR (b.start = ?2 AND b.id > ?3)) ORDER BY b.start ASC, b.id ASC")
+    List<Booking> findPageByOwnerId(Long ownerId, LocalDateTime cursorStart, Long cursorId, Limit limit);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE i.owner.id = ?1 AND b.phase = ?2 AND " +
+            "(b.start > ?3 OR (b.start = ?3 AND b.id > ?4)) ORDER BY b.start ASC, b.id ASC")
+    List<Booking> findPageByOwnerWithPhase(Long ownerId, Booking.Phase phase, LocalDateTime cursorStart, Long cursorId, Limit limit);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE i.owner.id = ?1 AND b.status = 'WAITING' AND " +
+            "(b.start > ?2 OR (b.start = ?2 AND b.id > ?3)) ORDER BY b.start ASC, b.id ASC")
+    List<Booking> findPageByOwnerWithWaitingState(Long ownerId, LocalDateTime cursorStart, Long cursorId, Limit limit);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE i.owner.id = ?1 AND b.status = 'REJECTED' AND " +
+            "(b.start > ?2 OR (b.start = ?2 AND b.id > ?3)) ORDER BY b.start ASC, b.id ASC")
+    List<Booking> findPageByOwnerWithRejectedState(Long ownerId, LocalDateTime cursorStart, Long cursorId, Limit limit);
+
+    //Фазы бронирований, пересекших границу в окне (from, to], обновляются одним запросом
+    @Modifying
+    @Query("UPDATE Booking b SET b.phase = ?1 WHERE b.end > ?2 AND b.end <= ?3 AND b.phase <> ?1")
+    int updatePhaseOfEnded(Booking.Phase past, LocalDateTime from, LocalDateTime to);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.phase = ?1 WHERE b.start > ?3 AND b.start <= ?4 AND b.end > ?4 AND b.phase = ?2")
+    int updatePhaseOfStarted(Booking.Phase current, Booking.Phase future, LocalDateTime from, LocalDateTime to);
+
+    //Число бронирований каждого владельца, которые переведет следующий запрос обновления фаз
+    @Query("SELECT i.owner.id AS ownerId, b.phase AS phase, COUNT(b) AS count FROM Booking b JOIN b.item i " +
+            "WHERE b.end > ?2 AND b.end <= ?3 AND b.phase <> ?1 GROUP BY i.owner.id, b.phase")
+    List<OwnerPhaseCount> countEndedByOwner(Booking.Phase past, LocalDateTime from, LocalDateTime to);
+
+    @Query("SELECT i.owner.id AS ownerId, b.phase AS phase, COUNT(b) AS count FROM Booking b JOIN b.item i " +
+            "WHERE b.start > ?2 AND b.start <= ?3 AND b.end > ?3 AND b.phase = ?1 GROUP BY i.owner.id, b.phase")
+    List<OwnerPhaseCount> countStartedByOwner(Booking.Phase future, LocalDateTime from, LocalDateTime to);
+
+    //Бронирования, сохраненные до появления столбца phase
+    @Modifying
+    @Query("UPDATE Booking b SET b.phase = CASE WHEN b.end <= ?1 THEN ?2 WHEN b.start <= ?1 THEN ?3 ELSE ?4 END " +
+            "WHERE b.phase IS NULL")
+    int updateMissingPhases(LocalDateTime now, Booking.Phase past, Booking.Phase current, Booking.Phase future);
+
+    //Потоковая выгрузка истории бронирований, строки читаются из БД порциями
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker " +
+            "WHERE b.booker.id = ?1 ORDER BY b.start ASC, b.id ASC")
+    Stream<Booking> streamAllByBookerId(Long bookerId);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker " +
+            "WHERE i.owner.id = ?1 ORDER BY b.start ASC, b.id ASC")
+    Stream<Booking> streamAllByOwnerId(Long ownerId);
 }
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.booking.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.OwnerBookingCounts;
+import ru.practicum.shareit.booking.model.OwnerBookingCounters;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OwnerBookingCountersRepository extends JpaRepository<OwnerBookingCounters, Long> {
+
+    //Счетчики владельца вещи меняются одним запросом без чтения строки
+    @Modifying
+    @Query("UPDATE OwnerBookingCounters c SET c.total = c.total + ?2, c.waiting = c.waiting + ?3, " +
+            "c.rejected = c.rejected + ?4, c.current = c.current + ?5, c.future = c.future + ?6, c.past = c.past + ?7 " +
+            "WHERE c.ownerId = (SELECT i.owner.id FROM Item i WHERE i.id = ?1)")
+    int addByItemId(Long itemId, long total, long waiting, long rejected, long current, long future, long past);
+
+    //Строка с нулевыми счетчиками для владельца вещи, если ее еще нет
+    @Modifying
+    @Query(value = "INSERT INTO owner_booking_counters (owner_id) SELECT owner_id FROM items WHERE item_id = ?1 " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertByItemId(Long itemId);
+
+    //Сверка идет порциями по id пользователей, чтобы блокировать только строки текущей порции
+    @Query("SELECT u.id FROM User u WHERE u.id > ?1 ORDER BY u.id ASC")
+    List<Long> findOwnerIdsAfter(Long ownerId, Limit limit);
+
+    @Modifying
+    @Query(value = "INSERT INTO owner_booking_counters (owner_id) SELECT DISTINCT i.owner_id FROM bookings b " +
+            "JOIN items i ON i.item_id = b.item_id WHERE i.owner_id IN (?1) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertForOwnersWithBookings(Collection<Long> ownerIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM OwnerBookingCounters c WHERE c.ownerId IN ?1 ORDER BY c.ownerId")
+    List<OwnerBookingCounters> findAllForUpdate(Collection<Long> ownerIds);
+
+    @Modifying
+    @Query("UPDATE OwnerBookingCounters c SET c.current = c.current + ?2, c.future = c.future + ?3, c.past = c.past + ?4 " +
+            "WHERE c.ownerId = ?1")
+    int addPhasesByOwnerId(Long ownerId, long current, long future, long past);
+
+    //Пересчет по всей истории бронирований владельцев порции, используется только для сверки
+    @Query("SELECT i.owner.id AS ownerId, COUNT(b) AS total, " +
+            "SUM(CASE WHEN b.status = 'WAITING' THEN 1 ELSE 0 END) AS waiting, " +
+            "SUM(CASE WHEN b.status = 'REJECTED' THEN 1 ELSE 0 END) AS rejected, " +
+            "SUM(CASE WHEN b.phase = 'CURRENT' THEN 1 ELSE 0 END) AS current, " +
+            "SUM(CASE WHEN b.phase = 'FUTURE' THEN 1 ELSE 0 END) AS future, " +
+            "SUM(CASE WHEN b.phase = 'PAST' THEN 1 ELSE 0 END) AS past " +
+            "FROM Booking b JOIN b.item i WHERE i.owner.id IN ?1 GROUP BY i.owner.id")
+    List<OwnerBookingCounts> countByOwnerIds(Collection<Long> ownerIds);
+}
@@ -0,0 +1,97 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.OwnerPhaseCount;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+//Переводит бронирования между фазами FUTURE -> CURRENT -> PAST,
+//каждый проход затрагивает только бронирования, пересекшие границу с прошлого прохода
+@Component
+@Slf4j
+public class BookingPhaseSweeper {
+
+    //Окно перекрывает предыдущий проход, чтобы не пропустить бронирования из еще не завершенных транзакций
+    private static final Duration SWEEP_OVERLAP = Duration.ofMinutes(1);
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1, 1, 1, 0, 0);
+
+    private final BookingRepository bookingRepository;
+    private final BookingSummaryCounters bookingSummaryCounters;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer sweepTimer;
+    private final Counter updatedCounter;
+
+    private volatile LocalDateTime lastSweep;
+
+    public BookingPhaseSweeper(BookingRepository bookingRepository, BookingSummaryCounters bookingSummaryCounters,
+                               PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.bookingSummaryCounters = bookingSummaryCounters;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sweepTimer = Timer.builder("shareit.booking.phase.sweep")
+                .description("Длительность прохода по фазам бронирований")
+                .register(meterRegistry);
+        this.updatedCounter = Counter.builder("shareit.booking.phase.updated")
+                .description("Число бронирований, перешедших в другую фазу")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.phase-sweep-interval-ms:1000}")
+    public synchronized void sweep() {
+        long startedAt = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = lastSweep == null ? EPOCH : lastSweep.minus(SWEEP_OVERLAP);
+
+        boolean firstSweep = lastSweep == null;
+
+        Integer updated = transactionTemplate.execute(status -> {
+            int count = 0;
+
+            //При первом проходе проставляем фазу бронированиям, сохраненным без нее
+            if (firstSweep) {
+                count += bookingRepository.updateMissingPhases(now, Booking.Phase.PAST, Booking.Phase.CURRENT,
+                        Booking.Phase.FUTURE);
+            }
+
+            //Сначала завершенные, чтобы короткое бронирование внутри окна сразу попало в PAST,
+            //счетчики владельцев сдвигаются на число переведенных бронирований в той же транзакции
+            List<OwnerPhaseCount> ended = bookingRepository.countEndedByOwner(Booking.Phase.PAST, from, now);
+            count += bookingRepository.updatePhaseOfEnded(Booking.Phase.PAST, from, now);
+            bookingSummaryCounters.onPhaseChanged(ended, Booking.Phase.PAST);
+
+            List<OwnerPhaseCount> started = bookingRepository.countStartedByOwner(Booking.Phase.FUTURE, from, now);
+            count += bookingRepository.updatePhaseOfStarted(Booking.Phase.CURRENT, Booking.Phase.FUTURE, from, now);
+            bookingSummaryCounters.onPhaseChanged(started, Booking.Phase.CURRENT);
+
+            return count;
+        });
+
+        lastSweep = now;
+
+        //После старта фазы всех бронирований известны, сверяем счетчики владельцев целиком
+        if (firstSweep) {
+            bookingSummaryCounters.reconcile();
+        }
+
+        long duration = System.nanoTime() - startedAt;
+        sweepTimer.record(Duration.ofNanos(duration));
+        updatedCounter.increment(updated);
+
+        if (updated > 0) {
+            log.info("Обновлены фазы {} бронирований за {} мс", updated, Duration.ofNanos(duration).toMillis());
+        } else {
+            log.debug("Проход по фазам бронирований за {} мс, изменений нет", Duration.ofNanos(duration).toMillis());
+        }
+    }
+}
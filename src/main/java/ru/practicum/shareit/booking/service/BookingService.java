@@ -1,8 +1,16 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResult;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPage;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.dto.ItemBookingDates;
+import ru.practicum.shareit.booking.dto.TimeSlot;
 import ru.practicum.shareit.booking.model.Booking;
 
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,15 +19,41 @@ public interface BookingService {
 
     public Booking isApprovedBooking(Long bookingId, Boolean approved, Optional<Long> optionalUserId);
 
+    public List<BookingBatchResult> addBookings(List<Booking> bookings, Optional<Long> optionalUserId);
+
+    public List<BookingBatchResult> approveBookings(List<BookingApprovalDto> decisions, Optional<Long> optionalUserId);
+
     public BookingDto getBookingById(Long bookingId);
 
+    public String getBookingETag(Long bookingId);
+
     public List<BookingDto> getAllBookingsByBooker(String state, Optional<Long> optionalBookerId);
 
     public List<BookingDto> getAllBookingsByOwner(String state, Optional<Long> optionalOwnerId);
 
     public List<BookingDto> getAllBookingsByBooker(Optional<Long> optionalBookerId);
 
+    public BookingPage getBookingsPageByBooker(String state, Optional<Long> optionalBookerId, String cursor, Integer limit);
+
+    public BookingPage getBookingsPageByOwner(String state, Optional<Long> optionalOwnerId, String cursor, Integer limit);
+
     public List<BookingDto> getAllBookingsByOwner(Optional<Long> optionalOwnerId);
 
+    public BookingSummaryDto getOwnerSummary(Optional<Long> optionalOwnerId);
+
     public List<Booking> getAllBookingsByItem(Long itemId);
+
+    public void exportBookingsByBooker(Optional<Long> optionalBookerId, OutputStream outputStream);
+
+    public void exportBookingsByOwner(Optional<Long> optionalOwnerId, OutputStream outputStream);
+
+    public Optional<LocalDateTime> getLastBookingEnd(Long itemId, LocalDateTime now);
+
+    public Optional<LocalDateTime> getNextBookingStart(Long itemId, LocalDateTime now);
+
+    public List<ItemBookingDates> getBookingDatesByOwner(Long ownerId, LocalDateTime now);
+
+    public boolean hasFinishedBooking(Long bookerId, Long itemId, LocalDateTime now);
+
+    public List<TimeSlot> getFreeSlots(Long itemId, LocalDateTime from, LocalDateTime to);
 }
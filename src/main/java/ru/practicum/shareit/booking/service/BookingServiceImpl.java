@@ -1,28 +1,55 @@
 package ru.practicum.shareit.booking.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResult;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPage;
+import ru.practicum.shareit.booking.dto.BookingStatusEvent;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.dto.BookingVersion;
+import ru.practicum.shareit.booking.dto.ItemBookingDates;
+import ru.practicum.shareit.booking.dto.TimeSlot;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exceptions.BadRequestException;
 import ru.practicum.shareit.exceptions.ConflictException;
 import ru.practicum.shareit.exceptions.NotFoundException;
-import ru.practicum.shareit.item.dto.ItemDto;
-import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.outbox.service.OutboxService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
-import java.time.Instant;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -30,34 +57,49 @@ import java.util.stream.Collectors;
 @Slf4j
 public class BookingServiceImpl implements BookingService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    //Пакет обрабатывается под блокировками всех его вещей, поэтому его размер ограничен
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final int EXPORT_BATCH_SIZE = 500;
+    private static final List<Booking.Status> ACTIVE_STATUSES = List.of(Booking.Status.WAITING, Booking.Status.APPROVED);
+
     private final BookingRepository bookingRepository;
     private final ItemService itemService;
     private final UserService userService;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final ItemBookingLocks itemBookingLocks;
+    private final ItemAvailabilityIndex itemAvailabilityIndex;
+    private final OutboxService outboxService;
+    private final BookingSummaryCounters bookingSummaryCounters;
 
     @Override
     public Booking addBooking(Booking booking, Optional<Long> optionalUserId) {
 
         Long userId = optionalUserId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
 
-        Booking addedBooking = new Booking();
+        //Пользователь и вещь собираются из кэшированных снимков без запросов к БД
         User booker = userService.getUser(userId);
-        ItemDto itemDto = itemService.getItem(optionalUserId, booking.getItemId());
-        Item item = ItemMapper.INSTANCE.toItem(itemDto);
-
-        //Проверяем, что предмет доступен
-        if (!item.getAvailable()) {
-            throw new BadRequestException("Выбранный предмет не доступен");
+        Item item = itemService.getItemWithOwner(booking.getItemId());
+
+        Booking addedBooking = toNewBooking(booking, item, booker);
+
+        //Проверка пересечений и сохранение выполняются под блокировкой вещи,
+        //бронирование и событие о нем сохраняются в одной транзакции
+        ReentrantLock lock = itemBookingLocks.forItem(item.getId());
+        lock.lock();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                checkOverlapping(addedBooking, ACTIVE_STATUSES);
+                bookingRepository.save(addedBooking);
+                appendStatusEvent(addedBooking, "BOOKING_CREATED");
+                bookingSummaryCounters.onCreated(addedBooking);
+            });
+        } finally {
+            lock.unlock();
         }
 
-        addedBooking.setBooker(booker);
-        addedBooking.setItem(item);
-        addedBooking.setStatus(Booking.Status.WAITING);
-        addedBooking.setStart(booking.getStart());
-        addedBooking.setEnd(booking.getEnd());
-        addedBooking.setItemId(booking.getItemId());
-
-        bookingRepository.save(addedBooking);
-
         log.info("Добавлено бронирование для пользователя {}", userId);
 
         return addedBooking;
@@ -65,30 +107,246 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public Booking isApprovedBooking(Long bookingId, Boolean approved, Optional<Long> optionalUserId) {
-        Booking updatedBooking = bookingRepository.findById(bookingId).orElseThrow(() -> new NotFoundException("Бронирование с таким ID не найдено"));
 
         Long userId = optionalUserId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
 
-        Item item = updatedBooking.getItem();
+        //Вещь бронирования не меняется, ее id нужен только для выбора блокировки
+        Long itemId = bookingRepository.findItemIdById(bookingId)
+                .orElseThrow(() -> new NotFoundException("Бронирование с таким ID не найдено"));
+
+        Booking.Status newStatus = approved ? Booking.Status.APPROVED : Booking.Status.REJECTED;
+
+        ReentrantLock lock = itemBookingLocks.forItem(itemId);
+        lock.lock();
+        try {
+            //Бронирование и его исходный статус читаются под блокировкой в той же транзакции, что и изменение
+            StatusChange change = new TransactionTemplate(transactionManager).execute(status -> {
+                Booking updatedBooking = bookingRepository.findById(bookingId)
+                        .orElseThrow(() -> new NotFoundException("Бронирование с таким ID не найдено"));
+
+                if (!updatedBooking.getItem().getOwner().getId().equals(userId)) {
+                    throw new BadRequestException("Id владельца не совпадают");
+                }
+
+                Booking.Status previousStatus = updatedBooking.getStatus();
+
+                //Повторное решение с тем же статусом ничего не меняет
+                if (newStatus == previousStatus) {
+                    return new StatusChange(updatedBooking, previousStatus);
+                }
+
+                if (newStatus == Booking.Status.APPROVED) {
+                    //Разрешенные бронирования одной вещи не должны пересекаться
+                    checkOverlapping(updatedBooking, List.of(Booking.Status.APPROVED));
+                    log.info("Бронирование разрешено");
+                } else {
+                    log.info("Бронирование запрещено");
+                }
+
+                updatedBooking.setStatus(newStatus);
+                bookingRepository.save(updatedBooking);
+
+                appendStatusEvent(updatedBooking, "BOOKING_" + newStatus.name());
+                bookingSummaryCounters.onStatusChanged(updatedBooking, previousStatus);
+
+                return new StatusChange(updatedBooking, previousStatus);
+            });
+
+            Booking updatedBooking = change.booking();
+
+            //Обновляем интервалы разрешенных бронирований для календаря доступности
+            if (newStatus == Booking.Status.APPROVED && change.previousStatus() != Booking.Status.APPROVED) {
+                itemAvailabilityIndex.addApproved(itemId, updatedBooking.getStart(), updatedBooking.getEnd());
+            } else if (newStatus != Booking.Status.APPROVED && change.previousStatus() == Booking.Status.APPROVED) {
+                itemAvailabilityIndex.removeApproved(itemId, updatedBooking.getStart(), updatedBooking.getEnd());
+            }
 
-        if (!item.getOwner().getId().equals(userId)) {
-            throw new BadRequestException("Id владельца не совпадают");
+            return updatedBooking;
+        } finally {
+            lock.unlock();
         }
+    }
+
+    @Override
+    public List<BookingBatchResult> addBookings(List<Booking> bookings, Optional<Long> optionalUserId) {
+
+        checkBatchSize(bookings);
+
+        Long userId = optionalUserId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
 
-        if (approved) {
-            updatedBooking.setStatus(Booking.Status.APPROVED);
-            log.info("Бронирование разрешено");
-        } else {
-            updatedBooking.setStatus(Booking.Status.REJECTED);
-            log.info("Бронирование запрещено");
+        User booker = userService.getUser(userId);
+
+        //Все вещи пакета получаем одним запросом
+        Set<Long> itemsId = bookings.stream()
+                .map(Booking::getItemId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Long, Item> items = itemService.getItemsByIds(itemsId)
+                .stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        Booking[] addedBookings = new Booking[bookings.size()];
+        String[] errors = new String[bookings.size()];
+        Map<Long, List<Booking>> acceptedByItem = new HashMap<>();
+
+        List<ReentrantLock> locks = itemBookingLocks.forItems(items.keySet());
+        locks.forEach(ReentrantLock::lock);
+        try {
+            for (int i = 0; i < bookings.size(); i++) {
+                Booking booking = bookings.get(i);
+
+                try {
+                    Item item = items.get(booking.getItemId());
+
+                    if (item == null) {
+                        throw new NotFoundException("Предмет с таким id найден");
+                    }
+
+                    Booking addedBooking = toNewBooking(booking, item, booker);
+                    List<Booking> accepted = acceptedByItem.computeIfAbsent(item.getId(), id -> new ArrayList<>());
+
+                    //Проверяем пересечения с сохраненными бронированиями и с бронированиями этого же пакета
+                    checkOverlapping(addedBooking, ACTIVE_STATUSES);
+                    checkOverlappingInBatch(addedBooking, accepted);
+
+                    accepted.add(addedBooking);
+                    addedBookings[i] = addedBooking;
+                } catch (NotFoundException | BadRequestException | ConflictException e) {
+                    errors[i] = e.getMessage();
+                }
+            }
+
+            //Сохраняем весь пакет и события о нем в одной транзакции
+            List<Booking> acceptedBookings = Arrays.stream(addedBookings).filter(Objects::nonNull).toList();
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                bookingRepository.saveAll(acceptedBookings);
+                acceptedBookings.forEach(addedBooking -> {
+                    appendStatusEvent(addedBooking, "BOOKING_CREATED");
+                    bookingSummaryCounters.onCreated(addedBooking);
+                });
+            });
+        } finally {
+            locks.forEach(ReentrantLock::unlock);
         }
 
-        bookingRepository.save(updatedBooking);
+        log.info("Добавлен пакет из {} бронирований для пользователя {}", bookings.size(), userId);
 
-        return updatedBooking;
+        return toBatchResults(addedBookings, errors);
     }
 
     @Override
+    public List<BookingBatchResult> approveBookings(List<BookingApprovalDto> decisions, Optional<Long> optionalUserId) {
+
+        checkBatchSize(decisions);
+
+        Long userId = optionalUserId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        //Все бронирования пакета получаем одним запросом
+        Set<Long> bookingsId = decisions.stream()
+                .map(BookingApprovalDto::getBookingId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Long, Booking> bookings = bookingRepository.findAllWithItemByIdIn(bookingsId)
+                .stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+
+        Set<Long> itemsId = bookings.values().stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet());
+
+        Booking[] updatedBookings = new Booking[decisions.size()];
+        Booking.Status[] previousStatuses = new Booking.Status[decisions.size()];
+        String[] errors = new String[decisions.size()];
+        Map<Long, List<Booking>> approvedByItem = new HashMap<>();
+
+        List<ReentrantLock> locks = itemBookingLocks.forItems(itemsId);
+        locks.forEach(ReentrantLock::lock);
+        try {
+            for (int i = 0; i < decisions.size(); i++) {
+                BookingApprovalDto decision = decisions.get(i);
+
+                try {
+                    Booking booking = bookings.get(decision.getBookingId());
+
+                    if (booking == null) {
+                        throw new NotFoundException("Бронирование с таким ID не найдено");
+                    }
+
+                    if (!booking.getItem().getOwner().getId().equals(userId)) {
+                        throw new BadRequestException("Id владельца не совпадают");
+                    }
+
+                    previousStatuses[i] = booking.getStatus();
+
+                    if (Boolean.TRUE.equals(decision.getApproved())) {
+                        List<Booking> approved = approvedByItem.computeIfAbsent(booking.getItem().getId(), id -> new ArrayList<>());
+
+                        checkOverlapping(booking, List.of(Booking.Status.APPROVED));
+                        checkOverlappingInBatch(booking, approved);
+
+                        approved.add(booking);
+                        booking.setStatus(Booking.Status.APPROVED);
+                    } else {
+                        booking.setStatus(Booking.Status.REJECTED);
+                    }
+
+                    updatedBookings[i] = booking;
+                } catch (NotFoundException | BadRequestException | ConflictException e) {
+                    errors[i] = e.getMessage();
+                }
+            }
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                List<Booking> changedBookings = Arrays.stream(updatedBookings).filter(Objects::nonNull).distinct().toList();
+
+                bookingRepository.saveAll(changedBookings);
+
+                //Одно бронирование может встретиться в пакете несколько раз, сравниваем итоговый статус с исходным
+                Map<Long, Booking.Status> initialStatuses = new HashMap<>();
+
+                for (int i = 0; i < updatedBookings.length; i++) {
+                    if (updatedBookings[i] != null) {
+                        initialStatuses.putIfAbsent(updatedBookings[i].getId(), previousStatuses[i]);
+                    }
+                }
+
+                for (Booking booking : changedBookings) {
+                    Booking.Status initialStatus = initialStatuses.get(booking.getId());
+
+                    if (booking.getStatus() != initialStatus) {
+                        appendStatusEvent(booking, "BOOKING_" + booking.getStatus().name());
+                        bookingSummaryCounters.onStatusChanged(booking, initialStatus);
+                    }
+                }
+            });
+
+            for (int i = 0; i < updatedBookings.length; i++) {
+                Booking booking = updatedBookings[i];
+
+                if (booking == null) {
+                    continue;
+                }
+
+                if (booking.getStatus() == Booking.Status.APPROVED) {
+                    itemAvailabilityIndex.addApproved(booking.getItem().getId(), booking.getStart(), booking.getEnd());
+                } else if (previousStatuses[i] == Booking.Status.APPROVED) {
+                    itemAvailabilityIndex.removeApproved(booking.getItem().getId(), booking.getStart(), booking.getEnd());
+                }
+            }
+        } finally {
+            locks.forEach(ReentrantLock::unlock);
+        }
+
+        log.info("Обработан пакет из {} решений по бронированиям", decisions.size());
+
+        return toBatchResults(updatedBookings, errors);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public BookingDto getBookingById(Long bookingId) {
         Booking booking = bookingRepository.findById(bookingId).orElseThrow(() -> new NotFoundException("Бронирование с таким ID не найдено"));
 
@@ -98,22 +356,33 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public String getBookingETag(Long bookingId) {
+        //Ответ включает вещь и арендатора, поэтому учитываем и их версии
+        BookingVersion bookingVersion = bookingRepository.findVersionById(bookingId)
+                .orElseThrow(() -> new NotFoundException("Бронирование с таким ID не найдено"));
+
+        return bookingVersion.getBookingVersion() + "-" + bookingVersion.getItemVersion() + "-" + bookingVersion.getBookerVersion();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<BookingDto> getAllBookingsByBooker(String state, Optional<Long> optionalBookerId) {
 
         Long bookerId = optionalBookerId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
 
         log.info("Получение списка бронирования для арендующего пользователя с учетом состояния бронирования");
 
-        Instant now = Instant.now();
+        //CURRENT, PAST и FUTURE выбираются по сохраненной фазе без сравнения дат
 
         return switch (state) {
             case "ALL" -> BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByBookerId(bookerId));
             case "CURRENT" ->
-                    BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByBookerWithCurrentState(bookerId, now));
+                    BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByBookerWithPhase(bookerId, Booking.Phase.CURRENT));
             case "PAST" ->
-                    BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByBookerWithPastState(bookerId, now));
+                    BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByBookerWithPhase(bookerId, Booking.Phase.PAST));
             case "FUTURE" ->
-                    BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByBookerWithFutureState(bookerId, now));
+                    BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByBookerWithPhase(bookerId, Booking.Phase.FUTURE));
             case "WAITING" ->
                     BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByBookerWithWaitingState(bookerId));
             case "REJECTED" ->
@@ -123,6 +392,7 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BookingDto> getAllBookingsByBooker(Optional<Long> optionalBookerId) {
 
         Long bookerId = optionalBookerId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
@@ -133,24 +403,20 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BookingDto> getAllBookingsByOwner(Optional<Long> optionalOwnerId) {
 
-        //Сначала надо найти вещи пользователя
-        List<Item> items = itemService.getAllItemsByOwnerId(optionalOwnerId);
+        Long ownerId = optionalOwnerId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
 
-        if (items.isEmpty()) {
-            throw new NotFoundException("Для этого пользователя не найдены вещи");
-        }
-
-        //Оставляем только список Id вещей
-        Set<Long> itemsId = items.stream().map(Item::getId).collect(Collectors.toSet());
+        checkOwnerHasItems(ownerId);
 
         log.info("Получение списка бронирования хозяина вещей");
 
-        return BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByOwnerId(itemsId));
+        return BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByOwnerId(ownerId));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Booking> getAllBookingsByItem(Long itemId) {
 
         log.info("Получение списка бронирования для определенной вещи");
@@ -159,35 +425,300 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<BookingDto> getAllBookingsByOwner(String state, Optional<Long> optionalOwnerId) {
+    @Transactional(readOnly = true)
+    public Optional<LocalDateTime> getLastBookingEnd(Long itemId, LocalDateTime now) {
 
-        Instant now = Instant.now();
+        log.info("Получение времени последнего бронирования для вещи с id: {}", itemId);
 
-        //Сначала надо найти вещи пользователя
-        List<Item> items = itemService.getAllItemsByOwnerId(optionalOwnerId);
+        return Optional.ofNullable(bookingRepository.findLastBookingEndByItemId(itemId, now));
+    }
 
-        if (items.isEmpty()) {
-            throw new ConflictException("Для этого пользователя не найдены вещи");
-        }
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<LocalDateTime> getNextBookingStart(Long itemId, LocalDateTime now) {
 
-        //Оставляем только список Id вещей
-        Set<Long> itemsId = items.stream().map(Item::getId).collect(Collectors.toSet());
+        log.info("Получение времени ближайшего бронирования для вещи с id: {}", itemId);
+
+        return Optional.ofNullable(bookingRepository.findNextBookingStartByItemId(itemId, now));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemBookingDates> getBookingDatesByOwner(Long ownerId, LocalDateTime now) {
+
+        log.info("Получение времени бронирований для всех вещей пользователя с id: {}", ownerId);
+
+        return bookingRepository.findBookingDatesByOwnerId(ownerId, now);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingDto> getAllBookingsByOwner(String state, Optional<Long> optionalOwnerId) {
+
+        Long ownerId = optionalOwnerId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        checkOwnerHasItems(ownerId);
 
         log.info("Получение списка бронирования для определенной вещи с учетом состояния");
 
         return switch (state) {
-            case "ALL" -> BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByOwnerId(itemsId));
+            case "ALL" -> BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByOwnerId(ownerId));
+            case "CURRENT" ->
+                    BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByOwnerWithPhase(ownerId, Booking.Phase.CURRENT));
+            case "PAST" ->
+                    BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByOwnerWithPhase(ownerId, Booking.Phase.PAST));
+            case "FUTURE" ->
+                    BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByOwnerWithPhase(ownerId, Booking.Phase.FUTURE));
+            case "WAITING" ->
+                    BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByOwnerWithWaitingState(ownerId));
+            case "REJECTED" ->
+                    BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByOwnerWithRejectedState(ownerId));
+            default -> throw new BadRequestException("Неверное состояние запроса на получение аренды");
+        };
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingPage getBookingsPageByBooker(String state, Optional<Long> optionalBookerId, String cursor, Integer limit) {
+
+        Long bookerId = optionalBookerId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        BookingCursor after = BookingCursor.decode(cursor);
+        Limit pageLimit = toLimit(limit);
+
+        log.info("Получение страницы бронирований для арендующего пользователя с учетом состояния бронирования");
+
+        List<Booking> bookings = switch (state) {
+            case "ALL" -> bookingRepository.findPageByBookerId(bookerId, after.start(), after.id(), pageLimit);
             case "CURRENT" ->
-                    BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByOwnerWithCurrentState(itemsId, now));
+                    bookingRepository.findPageByBookerWithPhase(bookerId, Booking.Phase.CURRENT, after.start(), after.id(), pageLimit);
             case "PAST" ->
-                    BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByOwnerWithPastState(itemsId, now));
+                    bookingRepository.findPageByBookerWithPhase(bookerId, Booking.Phase.PAST, after.start(), after.id(), pageLimit);
             case "FUTURE" ->
-                    BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByOwnerWithFutureState(itemsId, now));
+                    bookingRepository.findPageByBookerWithPhase(bookerId, Booking.Phase.FUTURE, after.start(), after.id(), pageLimit);
             case "WAITING" ->
-                    BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByOwnerWithWaitingState(itemsId));
+                    bookingRepository.findPageByBookerWithWaitingState(bookerId, after.start(), after.id(), pageLimit);
             case "REJECTED" ->
-                    BookingMapper.INSTANCE.toBooksDto(bookingRepository.findAllByOwnerWithRejectedState(itemsId));
+                    bookingRepository.findPageByBookerWithRejectedState(bookerId, after.start(), after.id(), pageLimit);
             default -> throw new BadRequestException("Неверное состояние запроса на получение аренды");
         };
+
+        return toBookingPage(bookings, pageLimit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingSummaryDto getOwnerSummary(Optional<Long> optionalOwnerId) {
+
+        Long ownerId = optionalOwnerId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        checkOwnerHasItems(ownerId);
+
+        log.info("Получение сводки по бронированиям хозяина вещей с id: {}", ownerId);
+
+        return bookingSummaryCounters.getSummary(ownerId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingPage getBookingsPageByOwner(String state, Optional<Long> optionalOwnerId, String cursor, Integer limit) {
+
+        Long ownerId = optionalOwnerId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        checkOwnerHasItems(ownerId);
+
+        BookingCursor after = BookingCursor.decode(cursor);
+        Limit pageLimit = toLimit(limit);
+
+        log.info("Получение страницы бронирований хозяина вещей с учетом состояния бронирования");
+
+        List<Booking> bookings = switch (state) {
+            case "ALL" -> bookingRepository.findPageByOwnerId(ownerId, after.start(), after.id(), pageLimit);
+            case "CURRENT" ->
+                    bookingRepository.findPageByOwnerWithPhase(ownerId, Booking.Phase.CURRENT, after.start(), after.id(), pageLimit);
+            case "PAST" ->
+                    bookingRepository.findPageByOwnerWithPhase(ownerId, Booking.Phase.PAST, after.start(), after.id(), pageLimit);
+            case "FUTURE" ->
+                    bookingRepository.findPageByOwnerWithPhase(ownerId, Booking.Phase.FUTURE, after.start(), after.id(), pageLimit);
+            case "WAITING" ->
+                    bookingRepository.findPageByOwnerWithWaitingState(ownerId, after.start(), after.id(), pageLimit);
+            case "REJECTED" ->
+                    bookingRepository.findPageByOwnerWithRejectedState(ownerId, after.start(), after.id(), pageLimit);
+            default -> throw new BadRequestException("Неверное состояние запроса на получение аренды");
+        };
+
+        return toBookingPage(bookings, pageLimit);
+    }
+
+    private Booking toNewBooking(Booking booking, Item item, User booker) {
+
+        if (booking.getStart() == null || booking.getEnd() == null || !booking.getStart().isBefore(booking.getEnd())) {
+            throw new BadRequestException("Начало бронирования должно быть раньше его окончания");
+        }
+
+        //Проверяем, что предмет доступен
+        if (!item.getAvailable()) {
+            throw new BadRequestException("Выбранный предмет не доступен");
+        }
+
+        Booking addedBooking = new Booking();
+
+        addedBooking.setBooker(booker);
+        addedBooking.setItem(item);
+        addedBooking.setStatus(Booking.Status.WAITING);
+        addedBooking.setStart(booking.getStart());
+        addedBooking.setEnd(booking.getEnd());
+        addedBooking.setItemId(item.getId());
+        addedBooking.setPhase(Booking.Phase.of(addedBooking.getStart(), addedBooking.getEnd(), LocalDateTime.now()));
+
+        return addedBooking;
+    }
+
+    //Событие об изменении статуса попадает в outbox в транзакции самого изменения
+    private void appendStatusEvent(Booking booking, String eventType) {
+        BookingStatusEvent event = new BookingStatusEvent(booking.getId(), booking.getItem().getId(),
+                booking.getBooker().getId(), booking.getStatus(), booking.getStart(), booking.getEnd());
+
+        outboxService.append("BOOKING", booking.getId(), eventType, event);
+    }
+
+    private List<BookingBatchResult> toBatchResults(Booking[] bookings, String[] errors) {
+        List<BookingBatchResult> results = new ArrayList<>();
+
+        for (int i = 0; i < bookings.length; i++) {
+            BookingBatchResult result = new BookingBatchResult();
+
+            result.setIndex(i);
+            result.setBooking(bookings[i] == null ? null : BookingMapper.INSTANCE.toBookingDto(bookings[i]));
+            result.setError(errors[i]);
+
+            results.add(result);
+        }
+
+        return results;
+    }
+
+    private void checkOverlappingInBatch(Booking booking, Collection<Booking> others) {
+        for (Booking other : others) {
+            if (other != booking && other.getStart().isBefore(booking.getEnd()) && other.getEnd().isAfter(booking.getStart())) {
+                throw new ConflictException("Вещь уже забронирована на это время");
+            }
+        }
+    }
+
+    private void checkOverlapping(Booking booking, List<Booking.Status> statuses) {
+        Long excludedBookingId = booking.getId() == null ? 0L : booking.getId();
+
+        if (bookingRepository.existsOverlapping(booking.getItem().getId(), booking.getStart(), booking.getEnd(),
+                excludedBookingId, statuses)) {
+            throw new ConflictException("Вещь уже забронирована на это время");
+        }
+    }
+
+    //Для всех запросов хозяина вещей: пользователь без вещей получает 404; сами вещи не загружаем
+    private void checkOwnerHasItems(Long ownerId) {
+        if (!itemService.hasItems(ownerId)) {
+            throw new NotFoundException("Для этого пользователя не найдены вещи");
+        }
+    }
+
+    private void checkBatchSize(List<?> batch) {
+        if (batch.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("Размер пакета не должен превышать " + MAX_BATCH_SIZE);
+        }
+    }
+
+    private Limit toLimit(Integer limit) {
+        if (limit == null || limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+
+        return Limit.of(limit);
+    }
+
+    private BookingPage toBookingPage(List<Booking> bookings, Limit limit) {
+        BookingPage page = new BookingPage();
+
+        page.setBookings(BookingMapper.INSTANCE.toBooksDto(bookings));
+
+        //Если страница заполнена полностью, отдаем курсор на последнее бронирование
+        if (bookings.size() == limit.max()) {
+            Booking last = bookings.get(bookings.size() - 1);
+            page.setNextCursor(new BookingCursor(last.getStart(), last.getId()).encode());
+        }
+
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean hasFinishedBooking(Long bookerId, Long itemId, LocalDateTime now) {
+
+        log.info("Проверка завершенного бронирования вещи с id: {} пользователем с id: {}", itemId, bookerId);
+
+        return bookingRepository.existsByBookerIdAndItemIdAndStatusAndEndBefore(bookerId, itemId,
+                Booking.Status.APPROVED, now);
+    }
+
+    @Override
+    public List<TimeSlot> getFreeSlots(Long itemId, LocalDateTime from, LocalDateTime to) {
+
+        log.info("Получение свободных интервалов для вещи с id: {}", itemId);
+
+        return itemAvailabilityIndex.getFreeSlots(itemId, from, to);
+    }
+
+    @Override
+    public void exportBookingsByBooker(Optional<Long> optionalBookerId, OutputStream outputStream) {
+
+        Long bookerId = optionalBookerId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        log.info("Выгрузка истории бронирования для арендующего пользователя с id: {}", bookerId);
+
+        exportBookings(() -> bookingRepository.streamAllByBookerId(bookerId), outputStream);
+    }
+
+    @Override
+    public void exportBookingsByOwner(Optional<Long> optionalOwnerId, OutputStream outputStream) {
+
+        Long ownerId = optionalOwnerId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        //Проверка выполняется до записи первой строки, пока ответ еще можно заменить на 404
+        checkOwnerHasItems(ownerId);
+
+        log.info("Выгрузка истории бронирования для хозяина вещей с id: {}", ownerId);
+
+        exportBookings(() -> bookingRepository.streamAllByOwnerId(ownerId), outputStream);
+    }
+
+    //Пишет бронирования построчно в формате NDJSON, не накапливая их в памяти
+    private void exportBookings(Supplier<Stream<Booking>> bookingsSupplier, OutputStream outputStream) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Booking> bookings = bookingsSupplier.get()) {
+                int count = 0;
+
+                for (Booking booking : (Iterable<Booking>) bookings::iterator) {
+                    outputStream.write(objectMapper.writeValueAsBytes(BookingMapper.INSTANCE.toBookingDto(booking)));
+                    outputStream.write('\n');
+
+                    //Очищаем контекст, чтобы загруженные сущности не накапливались
+                    if (++count % EXPORT_BATCH_SIZE == 0) {
+                        entityManager.clear();
+                        outputStream.flush();
+                    }
+                }
+
+                outputStream.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    //Бронирование после решения владельца и его статус до решения
+    private record StatusChange(Booking booking, Booking.Status previousStatus) {
     }
 }
@@ -0,0 +1,191 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.dto.OwnerBookingCounts;
+import ru.practicum.shareit.booking.dto.OwnerPhaseCount;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.OwnerBookingCounters;
+import ru.practicum.shareit.booking.repository.OwnerBookingCountersRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//Счетчики бронирований владельца по состояниям, обновляются в транзакции изменения бронирования,
+//переходы по времени учитывает BookingPhaseSweeper, расхождения исправляет периодическая сверка
+@Component
+@Slf4j
+public class BookingSummaryCounters {
+
+    private final OwnerBookingCountersRepository countersRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int reconcileChunkSize;
+
+    public BookingSummaryCounters(OwnerBookingCountersRepository countersRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${shareit.booking.summary-reconcile-chunk-size:500}") int reconcileChunkSize) {
+        this.countersRepository = countersRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reconcileChunkSize = reconcileChunkSize;
+    }
+
+    //Строка счетчиков создается с первым бронированием владельца, без нее бронирований нет
+    public BookingSummaryDto getSummary(Long ownerId) {
+        return countersRepository.findById(ownerId)
+                .map(this::toSummaryDto)
+                .orElseGet(this::emptySummaryDto);
+    }
+
+    //Вызывается внутри транзакции сохранения бронирования
+    public void onCreated(Booking booking) {
+        if (addCreated(booking) == 0) {
+            //Первое бронирование владельца: создаем строку, одновременная вставка не приводит к ошибке
+            countersRepository.insertByItemId(booking.getItem().getId());
+            addCreated(booking);
+        }
+    }
+
+    //Вызывается внутри транзакции изменения статуса
+    public void onStatusChanged(Booking booking, Booking.Status previousStatus) {
+        if (booking.getStatus() == previousStatus) {
+            return;
+        }
+
+        countersRepository.addByItemId(booking.getItem().getId(), 0,
+                statusDelta(Booking.Status.WAITING, previousStatus, booking.getStatus()),
+                statusDelta(Booking.Status.REJECTED, previousStatus, booking.getStatus()),
+                0, 0, 0);
+    }
+
+    //Вызывается BookingPhaseSweeper в транзакции обновления фаз
+    public void onPhaseChanged(List<OwnerPhaseCount> transitions, Booking.Phase phase) {
+        for (OwnerPhaseCount transition : transitions) {
+            long count = transition.getCount();
+
+            countersRepository.addPhasesByOwnerId(transition.getOwnerId(),
+                    phaseDelta(Booking.Phase.CURRENT, transition.getPhase(), phase, count),
+                    phaseDelta(Booking.Phase.FUTURE, transition.getPhase(), phase, count),
+                    phaseDelta(Booking.Phase.PAST, transition.getPhase(), phase, count));
+        }
+    }
+
+    @Scheduled(initialDelayString = "${shareit.booking.summary-reconcile-interval-ms:3600000}",
+            fixedDelayString = "${shareit.booking.summary-reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        long startedAt = System.currentTimeMillis();
+        long owners = 0;
+        Long lastOwnerId = 0L;
+
+        //Каждая порция сверяется в своей короткой транзакции, записи бронирований ждут только ее
+        while (true) {
+            List<Long> ownerIds = countersRepository.findOwnerIdsAfter(lastOwnerId, Limit.of(reconcileChunkSize));
+
+            if (ownerIds.isEmpty()) {
+                break;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> reconcileChunk(ownerIds));
+
+            owners += ownerIds.size();
+            lastOwnerId = ownerIds.get(ownerIds.size() - 1);
+        }
+
+        log.info("Сверены счетчики бронирований {} пользователей за {} мс", owners, System.currentTimeMillis() - startedAt);
+    }
+
+    private void reconcileChunk(List<Long> ownerIds) {
+        countersRepository.insertForOwnersWithBookings(ownerIds);
+
+        //Блокировка строк порции ждет незавершенные изменения счетчиков и не дает новым затереть пересчет,
+        //агрегат читается уже после нее и видит все зафиксированные бронирования
+        List<OwnerBookingCounters> counters = countersRepository.findAllForUpdate(ownerIds);
+
+        if (counters.isEmpty()) {
+            return;
+        }
+
+        Map<Long, OwnerBookingCounts> countsByOwner = countersRepository.countByOwnerIds(ownerIds)
+                .stream()
+                .collect(Collectors.toMap(OwnerBookingCounts::getOwnerId, Function.identity()));
+
+        for (OwnerBookingCounters ownerCounters : counters) {
+            OwnerBookingCounts counts = countsByOwner.get(ownerCounters.getOwnerId());
+
+            if (counts == null) {
+                //У владельца бронирований больше нет, строку оставляем для следующих обновлений
+                copyCounts(emptySummaryDto(), ownerCounters);
+            } else {
+                copyCounts(counts, ownerCounters);
+            }
+        }
+    }
+
+    private int addCreated(Booking booking) {
+        return countersRepository.addByItemId(booking.getItem().getId(), 1,
+                booking.getStatus() == Booking.Status.WAITING ? 1 : 0,
+                booking.getStatus() == Booking.Status.REJECTED ? 1 : 0,
+                booking.getPhase() == Booking.Phase.CURRENT ? 1 : 0,
+                booking.getPhase() == Booking.Phase.FUTURE ? 1 : 0,
+                booking.getPhase() == Booking.Phase.PAST ? 1 : 0);
+    }
+
+    private void copyCounts(OwnerBookingCounts counts, OwnerBookingCounters counters) {
+        counters.setTotal(counts.getTotal());
+        counters.setWaiting(counts.getWaiting());
+        counters.setRejected(counts.getRejected());
+        counters.setCurrent(counts.getCurrent());
+        counters.setFuture(counts.getFuture());
+        counters.setPast(counts.getPast());
+    }
+
+    private void copyCounts(BookingSummaryDto summary, OwnerBookingCounters counters) {
+        counters.setTotal(summary.getTotal());
+        counters.setWaiting(summary.getWaiting());
+        counters.setRejected(summary.getRejected());
+        counters.setCurrent(summary.getCurrent());
+        counters.setFuture(summary.getFuture());
+        counters.setPast(summary.getPast());
+    }
+
+    private long statusDelta(Booking.Status counted, Booking.Status previous, Booking.Status current) {
+        return (current == counted ? 1 : 0) - (previous == counted ? 1 : 0);
+    }
+
+    private long phaseDelta(Booking.Phase counted, Booking.Phase previous, Booking.Phase current, long count) {
+        return ((current == counted ? 1 : 0) - (previous == counted ? 1 : 0)) * count;
+    }
+
+    private BookingSummaryDto toSummaryDto(OwnerBookingCounts counters) {
+        BookingSummaryDto summary = new BookingSummaryDto();
+
+        summary.setTotal(counters.getTotal());
+        summary.setWaiting(counters.getWaiting());
+        summary.setRejected(counters.getRejected());
+        summary.setCurrent(counters.getCurrent());
+        summary.setFuture(counters.getFuture());
+        summary.setPast(counters.getPast());
+
+        return summary;
+    }
+
+    private BookingSummaryDto emptySummaryDto() {
+        BookingSummaryDto summary = new BookingSummaryDto();
+
+        summary.setTotal(0L);
+        summary.setWaiting(0L);
+        summary.setRejected(0L);
+        summary.setCurrent(0L);
+        summary.setFuture(0L);
+        summary.setPast(0L);
+
+        return summary;
+    }
+}
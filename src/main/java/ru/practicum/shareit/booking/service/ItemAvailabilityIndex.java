@@ -0,0 +1,167 @@
+package ru.practicum.shareit.booking.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.TimeSlot;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Интервалы разрешенных бронирований по вещам в виде отсортированных массивов миллисекунд
+@Component
+@RequiredArgsConstructor
+public class ItemAvailabilityIndex {
+
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+
+    private final Cache<Long, Intervals> intervalsByItem = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .build();
+
+    public List<TimeSlot> getFreeSlots(Long itemId, LocalDateTime from, LocalDateTime to) {
+        Intervals intervals = intervalsByItem.get(itemId, this::load);
+
+        //Свободный интервал не должен начинаться раньше запрошенного периода
+        long fromMilli = toEndMilli(from);
+        long toMilli = toStartMilli(to);
+
+        List<TimeSlot> freeSlots = new ArrayList<>();
+        long freeStart = fromMilli;
+
+        //Разрешенные бронирования не пересекаются, поэтому концы отсортированы так же, как начала
+        for (int i = intervals.firstEndingAfter(fromMilli); i < intervals.size() && intervals.starts[i] < toMilli; i++) {
+            if (intervals.starts[i] > freeStart) {
+                freeSlots.add(new TimeSlot(toDateTime(freeStart), toDateTime(intervals.starts[i])));
+            }
+
+            freeStart = Math.max(freeStart, intervals.ends[i]);
+        }
+
+        if (freeStart < toMilli) {
+            freeSlots.add(new TimeSlot(toDateTime(freeStart), to));
+        }
+
+        return freeSlots;
+    }
+
+    //Обновление выполняется после сохранения бронирования, вещи не из кэша загрузятся из БД при обращении
+    public void addApproved(Long itemId, LocalDateTime start, LocalDateTime end) {
+        intervalsByItem.asMap().computeIfPresent(itemId, (id, intervals) -> intervals.with(toStartMilli(start), toEndMilli(end)));
+    }
+
+    public void removeApproved(Long itemId, LocalDateTime start, LocalDateTime end) {
+        intervalsByItem.asMap().computeIfPresent(itemId, (id, intervals) -> intervals.without(toStartMilli(start), toEndMilli(end)));
+    }
+
+    private Intervals load(Long itemId) {
+        List<BookingInterval> bookings = bookingRepository.findApprovedIntervalsByItemId(itemId);
+
+        //Без бронирований проверяем, что вещь существует; исключение из загрузчика не кэшируется
+        if (bookings.isEmpty() && !itemRepository.existsById(itemId)) {
+            throw new NotFoundException("Вещь с таким id не найдена");
+        }
+
+        long[] starts = new long[bookings.size()];
+        long[] ends = new long[bookings.size()];
+
+        for (int i = 0; i < bookings.size(); i++) {
+            starts[i] = toStartMilli(bookings.get(i).getStart());
+            ends[i] = toEndMilli(bookings.get(i).getEnd());
+        }
+
+        return new Intervals(starts, ends);
+    }
+
+    //Начала округляются вниз, а концы вверх, чтобы занятое время не попадало в свободные интервалы
+    private static long toStartMilli(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static long toEndMilli(LocalDateTime dateTime) {
+        long milli = toStartMilli(dateTime);
+
+        return dateTime.getNano() % 1_000_000 == 0 ? milli : milli + 1;
+    }
+
+    private static LocalDateTime toDateTime(long milli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(milli), ZoneOffset.UTC);
+    }
+
+    //Неизменяемый набор интервалов, при изменении создается новая копия
+    private record Intervals(long[] starts, long[] ends) {
+
+        int size() {
+            return starts.length;
+        }
+
+        int firstEndingAfter(long milli) {
+            int low = 0;
+            int high = ends.length;
+
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+
+                if (ends[middle] <= milli) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            return low;
+        }
+
+        Intervals with(long start, long end) {
+            int position = Arrays.binarySearch(starts, start);
+
+            //Интервал уже есть, если индекс был загружен из БД после сохранения бронирования
+            if (position >= 0 && ends[position] == end) {
+                return this;
+            }
+
+            int insertAt = position >= 0 ? position : -position - 1;
+
+            return new Intervals(insert(starts, insertAt, start), insert(ends, insertAt, end));
+        }
+
+        Intervals without(long start, long end) {
+            int position = Arrays.binarySearch(starts, start);
+
+            if (position < 0 || ends[position] != end) {
+                return this;
+            }
+
+            return new Intervals(remove(starts, position), remove(ends, position));
+        }
+
+        private static long[] insert(long[] values, int index, long value) {
+            long[] result = new long[values.length + 1];
+
+            System.arraycopy(values, 0, result, 0, index);
+            result[index] = value;
+            System.arraycopy(values, index, result, index + 1, values.length - index);
+
+            return result;
+        }
+
+        private static long[] remove(long[] values, int index) {
+            long[] result = new long[values.length - 1];
+
+            System.arraycopy(values, 0, result, 0, index);
+            System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Набор блокировок по вещам: проверка пересечений и сохранение бронирования одной вещи выполняются по очереди.
+//Блокировки живут в памяти JVM и защищают только от запросов к этому же экземпляру приложения,
+//при нескольких экземплярах нужна блокировка в БД (SELECT ... FOR UPDATE строки вещи или advisory lock)
+@Component
+public class ItemBookingLocks {
+
+    private static final int STRIPES = 256;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public ItemBookingLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock forItem(Long itemId) {
+        return locks[stripe(itemId)];
+    }
+
+    //Блокировки возвращаются в порядке номеров, чтобы пакетные операции не блокировали друг друга навсегда
+    public List<ReentrantLock> forItems(Collection<Long> itemIds) {
+        return itemIds.stream()
+                .map(this::stripe)
+                .distinct()
+                .sorted()
+                .map(stripe -> locks[stripe])
+                .toList();
+    }
+
+    private int stripe(Long itemId) {
+        return Math.floorMod(Long.hashCode(itemId), STRIPES);
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+//Для GET-запросов решает, попадут ли INFO-сообщения этого запроса в журнал
+@Component
+public class LogSamplingFilter extends OncePerRequestFilter {
+
+    public static final String SAMPLED_KEY = "logSampled";
+
+    private final double sampleRate;
+
+    public LogSamplingFilter(@Value("${shareit.logging.read-sample-rate:1.0}") double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean sampled = !"GET".equals(request.getMethod()) || ThreadLocalRandom.current().nextDouble() < sampleRate;
+
+        MDC.put(SAMPLED_KEY, String.valueOf(sampled));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(SAMPLED_KEY);
+        }
+    }
+}
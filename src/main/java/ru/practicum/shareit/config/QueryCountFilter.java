@@ -0,0 +1,58 @@
+package ru.practicum.shareit.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Записывает число SQL-запросов на каждый HTTP-запрос с разбивкой по эндпоинтам.
+//Счетчик привязан к потоку, поэтому асинхронные ответы (выгрузка бронирований) не записываются:
+//их запросы выполняются в другом потоке, и в метрику попала бы только часть запросов
+@Component
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    //Метрика для каждой пары метода и шаблона URI регистрируется один раз
+    private final Map<SummaryKey, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCountInspector.reset();
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!request.isAsyncStarted()) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                SummaryKey key = new SummaryKey(request.getMethod(), pattern == null ? "UNKNOWN" : pattern.toString());
+
+                summaries.computeIfAbsent(key, this::registerSummary).record(QueryCountInspector.count());
+            }
+        }
+    }
+
+    private DistributionSummary registerSummary(SummaryKey key) {
+        return DistributionSummary.builder("shareit.http.jdbc.statements")
+                .description("Число SQL-запросов на один HTTP-запрос")
+                .tag("method", key.method())
+                .tag("uri", key.uri())
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    private record SummaryKey(String method, String uri) {
+    }
+}
@@ -0,0 +1,133 @@
+package ru.practicum.shareit.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Ограничивает частоту запросов каждого пользователя (429) и сбрасывает нагрузку,
+//когда запросов в обработке или ожидающих соединения с БД слишком много (503)
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@EnableConfigurationProperties(RateLimitProperties.class)
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String HEADER_NAME = "X-Sharer-User-Id";
+
+    private final RateLimitProperties properties;
+    private final UserRateLimiter rateLimiter;
+    private final ObjectProvider<HikariDataSource> dataSources;
+    private final ObjectMapper objectMapper;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile List<HikariDataSource> pools;
+
+    public RateLimitFilter(RateLimitProperties properties, ObjectProvider<HikariDataSource> dataSources,
+                           ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.rateLimiter = new UserRateLimiter(properties);
+        this.dataSources = dataSources;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        //Мониторинг должен отвечать и под нагрузкой
+        return !properties.enabled() || request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        UserRateLimiter.EndpointClass endpointClass = UserRateLimiter.classify(request.getMethod(), request.getRequestURI());
+        long waitNanos = rateLimiter.tryAcquire(endpointClass, clientKey(request));
+
+        if (waitNanos > 0) {
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1,
+                    "Слишком много запросов");
+            return;
+        }
+
+        try {
+            if (inFlight.incrementAndGet() > properties.maxConcurrentRequests()
+                    || pendingConnections() > properties.maxPendingConnections()) {
+                log.warn("Запрос {} {} отклонен из-за перегрузки", request.getMethod(), request.getRequestURI());
+                reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1, "Сервис перегружен");
+                return;
+            }
+
+            filterChain.doFilter(request, response);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    //Запросы без пользователя ограничиваются по адресу клиента
+    private Object clientKey(HttpServletRequest request) {
+        String userId = request.getHeader(HEADER_NAME);
+
+        if (userId != null) {
+            try {
+                return Long.valueOf(userId);
+            } catch (NumberFormatException e) {
+                return request.getRemoteAddr();
+            }
+        }
+
+        return request.getRemoteAddr();
+    }
+
+    //Число потоков, ожидающих соединения в самом загруженном из пулов Hikari
+    private int pendingConnections() {
+        List<HikariDataSource> currentPools = pools;
+
+        if (currentPools == null) {
+            currentPools = dataSources.orderedStream().toList();
+            pools = currentPools;
+        }
+
+        int pending = 0;
+
+        for (HikariDataSource dataSource : currentPools) {
+            //Пул создается при первом соединении, до этого ожидающих нет
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+
+            if (pool != null) {
+                pending = Math.max(pending, pool.getThreadsAwaitingConnection());
+            }
+        }
+
+        return pending;
+    }
+
+    //Тело ответа в том же формате, что и у GlobalExceptionHandler
+    private void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, String error)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", error));
+    }
+}
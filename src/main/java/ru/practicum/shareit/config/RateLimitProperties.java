@@ -0,0 +1,20 @@
+package ru.practicum.shareit.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+//Лимиты задаются для каждого класса эндпоинтов: shareit.rate-limit.limits.<класс>.capacity и refill-per-second
+@ConfigurationProperties(prefix = "shareit.rate-limit")
+public record RateLimitProperties(@DefaultValue("true") boolean enabled,
+                                  @DefaultValue("100000") int maxTrackedClients,
+                                  @DefaultValue("10m") Duration idleTimeout,
+                                  @DefaultValue("500") int maxConcurrentRequests,
+                                  @DefaultValue("50") int maxPendingConnections,
+                                  Map<String, Limit> limits) {
+
+    public record Limit(int capacity, double refillPerSecond) {
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.shareit.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+//При маршрутизации на реплику open-in-view держал бы соединение основного пула до конца запроса
+//и readOnly транзакции сервисов переиспользовали бы его вместо реплики, поэтому он отключается
+public class ReplicaOpenInViewPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (environment.getProperty("shareit.datasource.replica.enabled", Boolean.class, false)) {
+            environment.getPropertySources().addFirst(new MapPropertySource("shareitReplicaRouting",
+                    Map.of("spring.jpa.open-in-view", "false")));
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+//Отбрасывает INFO и более подробные сообщения запросов, не попавших в выборку
+public class SampledLogEventFilter extends Filter<ILoggingEvent> {
+
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        if (event.getLevel().isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+
+        String sampled = event.getMDCPropertyMap().get(LogSamplingFilter.SAMPLED_KEY);
+
+        return "false".equals(sampled) ? FilterReply.DENY : FilterReply.NEUTRAL;
+    }
+}
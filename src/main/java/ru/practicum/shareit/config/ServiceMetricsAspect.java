@@ -0,0 +1,91 @@
+package ru.practicum.shareit.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+//Замеряет время выполнения всех публичных методов сервисов, для бронирований добавляет тег состояния
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+
+    //Значение тега ограничено известными состояниями, чтобы произвольный ввод не плодил метрики
+    private static final Set<String> STATES = Set.of("ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED");
+
+    private final MeterRegistry meterRegistry;
+
+    //Таймер и позиция параметра state ищутся один раз, а не при каждом вызове
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<Method, Integer> stateParameters = new ConcurrentHashMap<>();
+
+    @Around("execution(public * ru.practicum.shareit..service.*ServiceImpl.*(..))")
+    public Object timeServiceMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+
+        long startedAt = System.nanoTime();
+        String exception = "none";
+
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            long duration = System.nanoTime() - startedAt;
+            TimerKey key = new TimerKey(signature.getMethod(), findState(signature, joinPoint.getArgs()), exception);
+
+            timers.computeIfAbsent(key, this::registerTimer).record(duration, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer registerTimer(TimerKey key) {
+        return Timer.builder("shareit.service")
+                .description("Время выполнения методов сервисов")
+                .tag("class", key.method().getDeclaringClass().getSimpleName())
+                .tag("method", key.method().getName())
+                .tag("state", key.state())
+                .tag("exception", key.exception())
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private String findState(MethodSignature signature, Object[] args) {
+        int index = stateParameters.computeIfAbsent(signature.getMethod(), method -> findStateParameter(signature));
+
+        if (index < 0 || !(args[index] instanceof String state)) {
+            return "none";
+        }
+
+        return STATES.contains(state) ? state : "INVALID";
+    }
+
+    private int findStateParameter(MethodSignature signature) {
+        String[] names = signature.getParameterNames();
+
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if ("state".equals(names[i])) {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    private record TimerKey(Method method, String state, String exception) {
+    }
+}
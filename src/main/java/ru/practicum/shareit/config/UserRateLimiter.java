@@ -0,0 +1,104 @@
+package ru.practicum.shareit.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Token bucket на каждого пользователя и класс эндпоинтов в виде GCRA:
+//состояние корзины - одно значение AtomicLong, обновляется через CAS без блокировок
+public class UserRateLimiter {
+
+    public enum EndpointClass {
+        SEARCH,
+        OWNER_BOOKINGS,
+        EXPORT,
+        WRITE,
+        DEFAULT;
+
+        public String propertyName() {
+            return name().toLowerCase().replace('_', '-');
+        }
+    }
+
+    private final Map<EndpointClass, Bucket> buckets = new EnumMap<>(EndpointClass.class);
+
+    public UserRateLimiter(RateLimitProperties properties) {
+        Map<String, RateLimitProperties.Limit> limits = properties.limits() == null ? Map.of() : properties.limits();
+
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            RateLimitProperties.Limit limit = limits.getOrDefault(endpointClass.propertyName(),
+                    limits.get(EndpointClass.DEFAULT.propertyName()));
+
+            //Класс без лимита и без лимита по умолчанию не ограничивается
+            if (limit != null) {
+                buckets.put(endpointClass, new Bucket(limit, properties));
+            }
+        }
+    }
+
+    public static EndpointClass classify(String method, String uri) {
+        if (uri.startsWith("/items/search")) {
+            return EndpointClass.SEARCH;
+        }
+
+        if (uri.endsWith("/export")) {
+            return EndpointClass.EXPORT;
+        }
+
+        if (uri.startsWith("/bookings/owner")) {
+            return EndpointClass.OWNER_BOOKINGS;
+        }
+
+        return "GET".equals(method) || "HEAD".equals(method) ? EndpointClass.DEFAULT : EndpointClass.WRITE;
+    }
+
+    //Возвращает 0, если запрос разрешен, иначе время в наносекундах до появления свободного токена
+    public long tryAcquire(EndpointClass endpointClass, Object clientKey) {
+        Bucket bucket = buckets.get(endpointClass);
+
+        return bucket == null ? 0 : bucket.tryAcquire(clientKey);
+    }
+
+    private static final class Bucket {
+
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final Cache<Object, AtomicLong> arrivals;
+
+        private Bucket(RateLimitProperties.Limit limit, RateLimitProperties properties) {
+            if (limit.refillPerSecond() <= 0) {
+                throw new IllegalArgumentException("Скорость пополнения лимита должна быть больше нуля");
+            }
+
+            this.intervalNanos = (long) (1_000_000_000L / limit.refillPerSecond());
+            this.burstNanos = intervalNanos * (Math.max(limit.capacity(), 1) - 1);
+            this.arrivals = Caffeine.newBuilder()
+                    .maximumSize(properties.maxTrackedClients())
+                    .expireAfterAccess(properties.idleTimeout())
+                    .build();
+        }
+
+        private long tryAcquire(Object clientKey) {
+            //Теоретическое время прихода следующего запроса, новая корзина полна
+            AtomicLong arrival = arrivals.get(clientKey, key -> new AtomicLong(System.nanoTime()));
+            long now = System.nanoTime();
+
+            while (true) {
+                long current = arrival.get();
+                long base = current - now > 0 ? current : now;
+                long wait = base - now - burstNanos;
+
+                if (wait > 0) {
+                    return wait;
+                }
+
+                if (arrival.compareAndSet(current, base + intervalNanos)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
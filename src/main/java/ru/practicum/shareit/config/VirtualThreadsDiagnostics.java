@@ -0,0 +1,43 @@
+package ru.practicum.shareit.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+//Выводит при старте сведения о работе на виртуальных потоках
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@RequiredArgsConstructor
+@Slf4j
+public class VirtualThreadsDiagnostics {
+
+    private final DataSource dataSource;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void logDiagnostics() {
+
+        //На виртуальных потоках число одновременных запросов к БД ограничивает только пул соединений
+        if (dataSource instanceof HikariDataSource hikariDataSource) {
+            log.info("Запросы обрабатываются на виртуальных потоках, размер пула соединений: {}, ожидание соединения: {} мс",
+                    hikariDataSource.getMaximumPoolSize(), hikariDataSource.getConnectionTimeout());
+        } else {
+            log.info("Запросы обрабатываются на виртуальных потоках");
+        }
+
+        //Блоки synchronized на пути JDBC закрепляют виртуальный поток за потоком-носителем
+        if (System.getProperty("jdk.tracePinnedThreads") == null) {
+            log.warn("Диагностика закрепления виртуальных потоков выключена, " +
+                    "для ее включения запустите приложение с -Djdk.tracePinnedThreads=short");
+        } else {
+            log.info("Диагностика закрепления виртуальных потоков включена: jdk.tracePinnedThreads={}",
+                    System.getProperty("jdk.tracePinnedThreads"));
+        }
+    }
+}
@@ -2,6 +2,7 @@ package ru.practicum.shareit.exceptions;
 
 import jakarta.validation.ValidationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -30,6 +31,18 @@ public class GlobalExceptionHandler {
     public Map<String, String> handleBadRequest(final BadRequestException e) {
         return Map.of("error", "Обнаружен неверный запрос");
     }
+
+    @ExceptionHandler(ConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> handleConflict(final ConflictException e) {
+        return Map.of("error", "Обнаружен конфликт данных");
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> handleOptimisticLock(final OptimisticLockingFailureException e) {
+        return Map.of("error", "Объект был изменен другим запросом");
+    }
 }
 
 
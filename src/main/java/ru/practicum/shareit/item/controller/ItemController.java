@@ -1,13 +1,17 @@
 package ru.practicum.shareit.item.controller;
 
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithTime;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,7 +42,13 @@ public class ItemController {
     }
 
     @GetMapping("/{itemId}")
-    public ItemDtoWithTime getItem(@RequestHeader(headerName) Optional<Long> optionalUserId, @PathVariable Long itemId) {
+    public ItemDtoWithTime getItem(@RequestHeader(headerName) Optional<Long> optionalUserId, @PathVariable Long itemId,
+                                   WebRequest request) {
+        //Если вещь не менялась, отвечаем 304 без загрузки и сериализации
+        if (request.checkNotModified(itemService.getItemETag(optionalUserId, itemId))) {
+            return null;
+        }
+
         return itemService.getItemWithTimeAndComments(optionalUserId, itemId);
     }
 
@@ -47,9 +57,23 @@ public class ItemController {
         return itemService.getAllItemsByOwner(optionalUserId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable Long itemId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return itemService.getAvailability(itemId, from, to);
+    }
+
+    @GetMapping(params = "withBookings=true")
+    public List<ItemDtoWithTime> getAllItemsWithTimeAndCommentsByOwner(@RequestHeader(headerName) Optional<Long> optionalUserId) {
+        return itemService.getAllItemsWithTimeAndCommentsByOwner(optionalUserId);
+    }
+
     @GetMapping("/search")
-    public List<ItemDto> searchItem(@RequestHeader(headerName) Optional<Long> optionalUserId, @RequestParam("text") String text) {
-        return itemService.searchItems(optionalUserId, text);
+    public List<ItemDto> searchItem(@RequestHeader(headerName) Optional<Long> optionalUserId, @RequestParam("text") String text,
+                                    @RequestParam(defaultValue = "0") Integer from,
+                                    @RequestParam(defaultValue = "20") Integer size) {
+        return itemService.searchItems(optionalUserId, text, from, size);
     }
 
 
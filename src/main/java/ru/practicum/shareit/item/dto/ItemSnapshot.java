@@ -0,0 +1,6 @@
+package ru.practicum.shareit.item.dto;
+
+//Неизменяемый снимок вещи для кэша items, владелец хранится только по id и берется из кэша users
+public record ItemSnapshot(Long id, String name, String description, Boolean available, Long ownerId,
+                           Long requestId, Long version) {
+}
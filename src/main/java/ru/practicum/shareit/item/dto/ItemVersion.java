@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.dto;
+
+import java.time.LocalDateTime;
+
+public interface ItemVersion {
+    Long getVersion();
+
+    Long getOwnerId();
+
+    Long getOwnerVersion();
+
+    Long getLastCommentId();
+
+    LocalDateTime getLastBooking();
+
+    LocalDateTime getNextBooking();
+}
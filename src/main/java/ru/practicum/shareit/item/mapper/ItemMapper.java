@@ -1,8 +1,10 @@
 package ru.practicum.shareit.item.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSnapshot;
 import ru.practicum.shareit.item.model.Item;
 
 import java.util.List;
@@ -13,7 +15,13 @@ public interface ItemMapper {
 
     ItemDto toItemDto(Item item);
 
+    @Mapping(target = "version", ignore = true)
     Item toItem(ItemDto itemDto);
 
+    ItemDto toItemDto(ItemSnapshot itemSnapshot);
+
+    @Mapping(target = "owner", ignore = true)
+    Item toItem(ItemSnapshot itemSnapshot);
+
     List<ItemDto> toListDto(List<Item> items);
 }
@@ -1,19 +1,39 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.dto.ItemSnapshot;
+import ru.practicum.shareit.item.dto.ItemVersion;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
     List<Item> findAllByOwnerId(Long userId);
 
-    @Query(" select i from Item i " +
-            "where i.available = true AND upper(i.name) like upper(concat('%', ?1, '%')) " +
-            " or upper(i.description) like upper(concat('%', ?1, '%'))")
-    List<Item> searchItems(String text);
+    boolean existsByOwnerId(Long userId);
+
+    //В кэше лежит неизменяемый снимок, а не сущность; отсутствующие вещи не кэшируются
+    @Cacheable(cacheNames = "items", key = "#p0", unless = "#result == null")
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemSnapshot(i.id, i.name, i.description, i.available, " +
+            "i.owner.id, i.requestId, i.version) FROM Item i WHERE i.id = ?1")
+    Optional<ItemSnapshot> findSnapshotById(Long itemId);
+
+    List<Item> findAllByAvailableTrue();
+
+    List<Item> findAllByRequestIdIn(Collection<Long> requestIds);
+
+    @Query("SELECT i.version AS version, i.owner.id AS ownerId, i.owner.version AS ownerVersion, " +
+            "(SELECT MAX(c.id) FROM Comment c WHERE c.item.id = i.id) AS lastCommentId, " +
+            "(SELECT MAX(b.end) FROM Booking b WHERE b.item.id = i.id AND b.end < ?2) AS lastBooking, " +
+            "(SELECT MIN(b.start) FROM Booking b WHERE b.item.id = i.id AND b.start > ?2) AS nextBooking " +
+            "FROM Item i WHERE i.id = ?1")
+    Optional<ItemVersion> findVersionById(Long itemId, LocalDateTime now);
 
 }
@@ -0,0 +1,211 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Инвертированный индекс по триграммам названия и описания доступных вещей
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ItemSearchIndex {
+
+    private static final int GRAM_SIZE = 3;
+
+    private final ItemRepository itemRepository;
+
+    //Поиск читает индекс без блокировки, перестроение подменяет его целиком
+    private volatile Index index = new Index(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+
+    //Изменения вещей ждут окончания перестроения и не теряются при подмене индекса
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Index rebuilt = new Index(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+
+        itemRepository.findAllByAvailableTrue().forEach(item -> add(rebuilt, item));
+        index = rebuilt;
+
+        log.info("Построен поисковый индекс для {} вещей", rebuilt.items().size());
+    }
+
+    //Вызывается после сохранения вещи; в транзакции индекс обновится только после ее фиксации
+    public void index(Item item) {
+        IndexedItem indexedItem = Boolean.TRUE.equals(item.getAvailable())
+                ? new IndexedItem(item.getId(), normalize(item.getName()), normalize(item.getDescription()))
+                : null;
+
+        afterCommit(() -> replace(item.getId(), indexedItem));
+    }
+
+    public void remove(Long itemId) {
+        afterCommit(() -> replace(itemId, null));
+    }
+
+    private void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    private synchronized void replace(Long itemId, IndexedItem indexedItem) {
+        Index current = index;
+
+        removeFrom(current, itemId);
+
+        if (indexedItem != null) {
+            addTo(current, indexedItem);
+        }
+    }
+
+    private void add(Index target, Item item) {
+        addTo(target, new IndexedItem(item.getId(), normalize(item.getName()), normalize(item.getDescription())));
+    }
+
+    private void addTo(Index target, IndexedItem indexedItem) {
+        target.items().put(indexedItem.id(), indexedItem);
+
+        for (String gram : grams(indexedItem.name() + " " + indexedItem.description())) {
+            target.postings().computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(indexedItem.id());
+        }
+    }
+
+    private void removeFrom(Index target, Long itemId) {
+        Map<String, Set<Long>> postings = target.postings();
+        IndexedItem indexedItem = target.items().remove(itemId);
+
+        if (indexedItem == null) {
+            return;
+        }
+
+        for (String gram : grams(indexedItem.name() + " " + indexedItem.description())) {
+            Set<Long> ids = postings.get(gram);
+
+            if (ids != null) {
+                ids.remove(itemId);
+
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    //Возвращает id найденных вещей: сначала совпадения по названию, затем по описанию
+    public List<Long> search(String text, int from, int size) {
+        String query = normalize(text);
+        Index current = index;
+
+        List<IndexedItem> found = new ArrayList<>();
+
+        for (IndexedItem indexedItem : candidates(current, query)) {
+            if (indexedItem.name().contains(query) || indexedItem.description().contains(query)) {
+                found.add(indexedItem);
+            }
+        }
+
+        found.sort(Comparator.comparingInt((IndexedItem indexedItem) -> rank(indexedItem, query))
+                .thenComparing(IndexedItem::id));
+
+        return found.stream()
+                .skip(from)
+                .limit(size)
+                .map(IndexedItem::id)
+                .toList();
+    }
+
+    private Collection<IndexedItem> candidates(Index current, String query) {
+
+        //Короткие запросы не раскладываются на триграммы, проверяем все вещи
+        if (query.length() < GRAM_SIZE) {
+            return current.items().values();
+        }
+
+        Set<Long> ids = null;
+
+        for (String gram : grams(query)) {
+            Set<Long> gramIds = current.postings().get(gram);
+
+            if (gramIds == null) {
+                return List.of();
+            }
+
+            if (ids == null) {
+                ids = new HashSet<>(gramIds);
+            } else {
+                ids.retainAll(gramIds);
+            }
+
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<IndexedItem> result = new ArrayList<>();
+
+        for (Long id : ids) {
+            IndexedItem indexedItem = current.items().get(id);
+
+            if (indexedItem != null) {
+                result.add(indexedItem);
+            }
+        }
+
+        return result;
+    }
+
+    private int rank(IndexedItem indexedItem, String query) {
+        if (indexedItem.name().startsWith(query)) {
+            return 0;
+        }
+
+        if (indexedItem.name().contains(query)) {
+            return 1;
+        }
+
+        return 2;
+    }
+
+    private Set<String> grams(String value) {
+        Set<String> result = new HashSet<>();
+
+        for (int i = 0; i + GRAM_SIZE <= value.length(); i++) {
+            result.add(value.substring(i, i + GRAM_SIZE));
+        }
+
+        return result;
+    }
+
+    private String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private record IndexedItem(Long id, String name, String description) {
+    }
+
+    private record Index(Map<Long, IndexedItem> items, Map<String, Set<Long>> postings) {
+    }
+}
@@ -1,10 +1,13 @@
 package ru.practicum.shareit.item.service;
 
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithTime;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,13 +19,25 @@ public interface ItemService {
 
     public ItemDto getItem(Optional<Long> optionalUserId, Long itemId);
 
+    public Item getItemWithOwner(Long itemId);
+
     public List<ItemDto> getAllItemsByOwner(Optional<Long> userId);
 
-    public List<ItemDto> searchItems(Optional<Long> userId, String text);
+    public List<ItemDtoWithTime> getAllItemsWithTimeAndCommentsByOwner(Optional<Long> userId);
+
+    public List<ItemDto> searchItems(Optional<Long> userId, String text, Integer from, Integer size);
 
     public List<Item> getAllItemsByOwnerId(Optional<Long> ownerId);
 
+    public boolean hasItems(Long ownerId);
+
+    public List<Item> getItemsByIds(Collection<Long> itemIds);
+
     public Comment addComment(Comment comment, Optional<Long> userId, Long itemId);
 
     public ItemDtoWithTime getItemWithTimeAndComments(Optional<Long> userId, Long itemId);
+
+    public String getItemETag(Optional<Long> userId, Long itemId);
+
+    public ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
 }
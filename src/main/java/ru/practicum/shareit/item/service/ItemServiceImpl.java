@@ -4,28 +4,40 @@ import jakarta.validation.ValidationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.booking.dto.BookingDto;
-import ru.practicum.shareit.booking.model.Booking;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.ItemBookingDates;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.exceptions.BadRequestException;
-import ru.practicum.shareit.exceptions.ConflictException;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithTime;
+import ru.practicum.shareit.item.dto.ItemSnapshot;
+import ru.practicum.shareit.item.dto.ItemVersion;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Qualifier("ItemServiceImpl")
@@ -35,14 +47,19 @@ public class ItemServiceImpl implements ItemService {
     private final UserService userService;
     private final CommentRepository commentRepository;
     private final BookingService bookingService;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemRequestRepository itemRequestRepository;
 
     @Autowired
     public ItemServiceImpl(ItemRepository itemRepository, UserService userService,
-                           CommentRepository commentRepository, @Lazy BookingService bookingService) {
+                           CommentRepository commentRepository, @Lazy BookingService bookingService,
+                           ItemSearchIndex itemSearchIndex, ItemRequestRepository itemRequestRepository) {
         this.itemRepository = itemRepository;
         this.userService = userService;
         this.commentRepository = commentRepository;
         this.bookingService = bookingService;
+        this.itemSearchIndex = itemSearchIndex;
+        this.itemRequestRepository = itemRequestRepository;
     }
 
     @Override
@@ -56,14 +73,27 @@ public class ItemServiceImpl implements ItemService {
             throw new ValidationException("Поля имя, описание и доступность не должны быть null");
         }
 
+        //Вещь может быть добавлена в ответ на запрос
+        if (item.getRequestId() != null && !itemRequestRepository.existsById(item.getRequestId())) {
+            throw new NotFoundException("Запрос с таким id не найден");
+        }
+
         item.setOwner(user);
 
+        Item addedItem = itemRepository.save(item);
+        itemSearchIndex.index(addedItem);
+
         log.info("Добавили вещь в БД");
 
-        return itemRepository.save(item);
+        return addedItem;
     }
 
+    //Кэш очищается до и после изменения, как и для пользователей
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "items", key = "#itemId", beforeInvocation = true),
+            @CacheEvict(cacheNames = "items", key = "#itemId")
+    })
     public Item updateItem(Item item, Optional<Long> optionalUserId, Long itemId) {
 
         Long userId = optionalUserId.orElseThrow(() -> new BadRequestException("Неверный запрос"));
@@ -76,68 +106,147 @@ public class ItemServiceImpl implements ItemService {
         updatedItem.setName(item.getName());
         updatedItem.setAvailable(item.getAvailable());
 
+        Item savedItem = itemRepository.save(updatedItem);
+        itemSearchIndex.index(savedItem);
+
         log.info("Обновили вещь с id: {}", itemId);
 
-        return itemRepository.save(updatedItem);
+        return savedItem;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemDtoWithTime getItemWithTimeAndComments(Optional<Long> optionalUserId, Long itemId) {
 
         Long userId = optionalUserId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
 
         List<Comment> comments = getComments(itemId);
 
-        List<Booking> bookingsForItem = bookingService.getAllBookingsByItem(itemId);
-
         LocalDateTime now = LocalDateTime.now();
 
-        //Находим время последнего бронирования
-        Optional<LocalDateTime> lastBookingForItem = bookingsForItem.stream()
-                .map(Booking::getEnd)
-                .filter(end -> end.isBefore(now))
-                .max(LocalDateTime::compareTo);
-
-        // Находим время ближайшего будущего бронирования
-        Optional<LocalDateTime> nextBookingForItem = bookingsForItem.stream()
-                .map(Booking::getStart)
-                .filter(start -> start.isAfter(now))
-                .min(LocalDateTime::compareTo);
+        //Находим время последнего бронирования и ближайшего будущего бронирования
+        Optional<LocalDateTime> lastBookingForItem = bookingService.getLastBookingEnd(itemId, now);
+        Optional<LocalDateTime> nextBookingForItem = bookingService.getNextBookingStart(itemId, now);
 
         LocalDateTime lastBooking = lastBookingForItem.orElse(null);
         LocalDateTime nextBooking = nextBookingForItem.orElse(null);
 
         Item item = itemRepository.findById(itemId).orElseThrow(() -> new NotFoundException("Предмет с таким id найден"));
-        ItemDtoWithTime itemDto = new ItemDtoWithTime();
 
         //Проверяем что пользователь является владельцем вещи
         if (!item.getOwner().getId().equals(userId)) {
             lastBooking = null;
         }
 
-        itemDto.setName(item.getName());
-        itemDto.setAvailable(item.getAvailable());
-        itemDto.setDescription(item.getDescription());
-        itemDto.setId(item.getId());
-        itemDto.setLastBooking(lastBooking);
-        itemDto.setNextBooking(nextBooking);
-        itemDto.setComments(comments);
-
         log.info("Получили вещь с id: {} вместе с комментариями и датами бронирования", itemId);
 
-        return itemDto;
+        return toItemDtoWithTime(item, lastBooking, nextBooking, comments);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getItemETag(Optional<Long> optionalUserId, Long itemId) {
+
+        Long userId = optionalUserId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        //Версия вещи, последний комментарий и даты бронирований получаем одним запросом без загрузки сущностей
+        ItemVersion itemVersion = itemRepository.findVersionById(itemId, LocalDateTime.now())
+                .orElseThrow(() -> new NotFoundException("Предмет с таким id найден"));
+
+        //Дата последнего бронирования видна только владельцу, поэтому ETag для него отличается
+        LocalDateTime lastBooking = itemVersion.getOwnerId().equals(userId) ? itemVersion.getLastBooking() : null;
+
+        //Владелец вещи попадает в ответ внутри комментариев, поэтому его изменение тоже меняет ETag
+        return itemVersion.getVersion() + "-" + itemVersion.getOwnerVersion()
+                + "-" + Objects.requireNonNullElse(itemVersion.getLastCommentId(), 0L)
+                + "-" + toETagPart(lastBooking) + "-" + toETagPart(itemVersion.getNextBooking());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemDtoWithTime> getAllItemsWithTimeAndCommentsByOwner(Optional<Long> optionalUserId) {
+
+        Long userId = optionalUserId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        List<Item> items = itemRepository.findAllByOwnerId(userId);
+
+        if (items.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> itemsId = items.stream().map(Item::getId).toList();
+
+        //Даты бронирований и комментарии получаем одним запросом для всех вещей
+        Map<Long, ItemBookingDates> bookingDates = bookingService.getBookingDatesByOwner(userId, LocalDateTime.now())
+                .stream()
+                .collect(Collectors.toMap(ItemBookingDates::getItemId, Function.identity()));
+
+        Map<Long, List<Comment>> comments = commentRepository.findAllByItemIdIn(itemsId)
+                .stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId()));
+
+        List<ItemDtoWithTime> itemsDto = new ArrayList<>();
+
+        for (Item item : items) {
+            ItemBookingDates dates = bookingDates.get(item.getId());
+
+            itemsDto.add(toItemDtoWithTime(item,
+                    dates == null ? null : dates.getLastBooking(),
+                    dates == null ? null : dates.getNextBooking(),
+                    comments.getOrDefault(item.getId(), new ArrayList<>())));
+        }
+
+        log.info("Получили список вещей с датами бронирования и комментариями для пользователя с id: {}", userId);
+
+        return itemsDto;
+    }
+
+    @Override
+    public ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("Начало периода должно быть раньше его окончания");
+        }
+
+        ItemAvailabilityDto availability = new ItemAvailabilityDto();
+
+        availability.setItemId(itemId);
+        availability.setFrom(from);
+        availability.setTo(to);
+        availability.setFreeSlots(bookingService.getFreeSlots(itemId, from, to));
+
+        log.info("Получили календарь доступности вещи с id: {}", itemId);
+
+        return availability;
     }
 
     @Override
     public ItemDto getItem(Optional<Long> userId, Long itemId) {
-        Item item = itemRepository.findById(itemId).orElseThrow(() -> new NotFoundException("Предмет с таким id найден"));
+        ItemSnapshot item = getItemSnapshot(itemId);
 
         log.info("Получили вещь с id: {}", itemId);
 
         return ItemMapper.INSTANCE.toItemDto(item);
     }
 
+    //Новый экземпляр вещи и владельца из кэшированных снимков для ссылок из бронирований и комментариев,
+    //версия нужна Hibernate, чтобы считать его сохраненным
+    @Override
+    public Item getItemWithOwner(Long itemId) {
+        ItemSnapshot snapshot = getItemSnapshot(itemId);
+        Item item = ItemMapper.INSTANCE.toItem(snapshot);
+
+        item.setOwner(getUserById(snapshot.ownerId()));
+
+        return item;
+    }
+
+    private ItemSnapshot getItemSnapshot(Long itemId) {
+        return itemRepository.findSnapshotById(itemId).orElseThrow(() -> new NotFoundException("Предмет с таким id найден"));
+    }
+
     @Override
+    @Transactional(readOnly = true)
     public List<ItemDto> getAllItemsByOwner(Optional<Long> optionalUserId) {
 
         Long userId = optionalUserId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
@@ -150,21 +259,32 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
-    public List<ItemDto> searchItems(Optional<Long> optionalUserId, String text) {
-
-        List<ItemDto> foundedDtoItems = new ArrayList<>();
+    @Transactional(readOnly = true)
+    public List<ItemDto> searchItems(Optional<Long> optionalUserId, String text, Integer from, Integer size) {
 
         if (text == null || text.isBlank()) {
-            return foundedDtoItems;
+            return new ArrayList<>();
+        }
+
+        if (from < 0 || size < 1) {
+            throw new BadRequestException("Неверные параметры страницы поиска");
         }
 
-        List<Item> foundedItems = itemRepository.searchItems(text);
+        List<Long> foundedIds = itemSearchIndex.search(text, from, size);
 
-        foundedDtoItems = ItemMapper.INSTANCE.toListDto(foundedItems);
+        //Сохраняем порядок ранжирования из поискового индекса
+        Map<Long, Item> foundedItems = itemRepository.findAllById(foundedIds)
+                .stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        List<Item> rankedItems = foundedIds.stream()
+                .map(foundedItems::get)
+                .filter(Objects::nonNull)
+                .toList();
 
         log.info("Получили список вещей для поискового запроса: {}", text);
 
-        return foundedDtoItems;
+        return ItemMapper.INSTANCE.toListDto(rankedItems);
     }
 
     private User getUserById(Long id) {
@@ -173,6 +293,7 @@ public class ItemServiceImpl implements ItemService {
 
     //Для BookingService требуется список предметов
     @Override
+    @Transactional(readOnly = true)
     public List<Item> getAllItemsByOwnerId(Optional<Long> optionalOwnerId) {
 
         Long ownerId = optionalOwnerId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
@@ -182,26 +303,32 @@ public class ItemServiceImpl implements ItemService {
         return itemRepository.findAllByOwnerId(ownerId);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public boolean hasItems(Long ownerId) {
+        return itemRepository.existsByOwnerId(ownerId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Item> getItemsByIds(Collection<Long> itemIds) {
+
+        log.info("Получен список вещей по {} идентификаторам", itemIds.size());
+
+        return itemRepository.findAllById(itemIds);
+    }
+
     @Override
     public Comment addComment(Comment comment, Optional<Long> optionalUserId, Long itemId) {
 
         Long userId = optionalUserId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
 
-        Item item = ItemMapper.INSTANCE.toItem(getItem(optionalUserId, itemId));
+        Item item = getItemWithOwner(itemId);
         LocalDateTime localDateTime = LocalDateTime.now();
 
-        //Проверяем, что пользователь брал вещь в аренду
-        List<BookingDto> bookings = bookingService.getAllBookingsByBooker(optionalUserId);
-
-        if (bookings.isEmpty()) {
-            throw new NotFoundException("Пользователь не брал вещей в аренду");
-        }
-
-        //Проверяем, что пользователь может оставлять комментарий только после окончания аренды
-        for (BookingDto booking : bookings) {
-            if (booking.getEnd().isAfter(localDateTime)) {
-                throw new ConflictException("Пользователь может оставлять комментарий только после срока окончания аренды");
-            }
+        //Проверяем, что пользователь брал эту вещь в аренду и аренда уже закончилась
+        if (!bookingService.hasFinishedBooking(userId, itemId, localDateTime)) {
+            throw new BadRequestException("Пользователь может оставлять комментарий только после окончания аренды этой вещи");
         }
 
         Comment addedComment = new Comment();
@@ -216,10 +343,30 @@ public class ItemServiceImpl implements ItemService {
         return commentRepository.save(addedComment);
     }
 
+    @Transactional(readOnly = true)
     public List<Comment> getComments(Long itemId) {
 
         log.info("Получение списка всех комментариев для вещи с id: {}", itemId);
 
         return commentRepository.findAllByItemId(itemId);
     }
+
+    private String toETagPart(LocalDateTime dateTime) {
+        return dateTime == null ? "0" : Long.toHexString(dateTime.toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+
+    private ItemDtoWithTime toItemDtoWithTime(Item item, LocalDateTime lastBooking, LocalDateTime nextBooking,
+                                              List<Comment> comments) {
+        ItemDtoWithTime itemDto = new ItemDtoWithTime();
+
+        itemDto.setName(item.getName());
+        itemDto.setAvailable(item.getAvailable());
+        itemDto.setDescription(item.getDescription());
+        itemDto.setId(item.getId());
+        itemDto.setLastBooking(lastBooking);
+        itemDto.setNextBooking(nextBooking);
+        itemDto.setComments(comments);
+
+        return itemDto;
+    }
 }
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.outbox.dto;
+
+import java.time.LocalDateTime;
+
+public record OutboxMessage(String dedupeKey,
+                            String aggregateType,
+                            Long aggregateId,
+                            String eventType,
+                            String payload,
+                            LocalDateTime created) {
+}
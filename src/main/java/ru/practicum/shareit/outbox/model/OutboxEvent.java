@@ -0,0 +1,44 @@
+package ru.practicum.shareit.outbox.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = "outbox_seq", allocationSize = 50)
+    @Column(name = "event_id")
+    private Long id;
+
+    //Ключ для отбрасывания повторных доставок на стороне получателя
+    @Column(name = "dedupe_key")
+    private String dedupeKey;
+
+    @Column(name = "aggregate_type")
+    private String aggregateType;
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    @Column(name = "event_type")
+    private String eventType;
+
+    private String payload;
+
+    private LocalDateTime created;
+
+    private LocalDateTime published;
+
+    private Integer attempts;
+
+    //Событие исчерпало попытки доставки и больше не выбирается для отправки
+    private LocalDateTime failed;
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.outbox.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.outbox.model.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query("SELECT e FROM OutboxEvent e WHERE e.published IS NULL AND e.failed IS NULL ORDER BY e.id ASC")
+    List<OutboxEvent> findPending(Limit limit);
+
+    long countByPublishedIsNullAndFailedIsNull();
+
+    long countByFailedIsNotNull();
+
+    @Query("SELECT MIN(e.created) FROM OutboxEvent e WHERE e.published IS NULL AND e.failed IS NULL")
+    LocalDateTime findOldestPendingCreated();
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.published = ?2 WHERE e.id IN ?1")
+    int markPublished(Collection<Long> eventIds, LocalDateTime published);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1 WHERE e.id IN ?1")
+    int incrementAttempts(Collection<Long> eventIds);
+
+    //Откладываем события, которые не доставлены за отведенное число попыток
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.failed = ?3 WHERE e.id IN ?1 AND e.attempts >= ?2")
+    int markFailed(Collection<Long> eventIds, int maxAttempts, LocalDateTime failed);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.published < ?1")
+    int deletePublishedBefore(LocalDateTime published);
+}
@@ -0,0 +1,211 @@
+package ru.practicum.shareit.outbox.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.outbox.dto.OutboxMessage;
+import ru.practicum.shareit.outbox.model.OutboxEvent;
+import ru.practicum.shareit.outbox.repository.OutboxEventRepository;
+import ru.practicum.shareit.outbox.sink.OutboxSink;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Фоновая доставка событий из outbox пакетами во все зарегистрированные получатели
+@Component
+@Slf4j
+public class OutboxDispatcher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxSink> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retention;
+
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Timer deliveryDelay;
+    private final Counter deadLetterCounter;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong deadLetters = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository, ObjectProvider<OutboxSink> sinks,
+                            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                            @Value("${shareit.outbox.batch-size:100}") int batchSize,
+                            @Value("${shareit.outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${shareit.outbox.retention-hours:24}") long retentionHours) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.sinks = sinks.orderedStream().toList();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retention = Duration.ofHours(retentionHours);
+
+        this.publishedCounter = Counter.builder("shareit.outbox.published")
+                .description("Число доставленных событий outbox")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("shareit.outbox.failed")
+                .description("Число событий outbox, доставка которых не удалась и будет повторена")
+                .register(meterRegistry);
+        this.deadLetterCounter = Counter.builder("shareit.outbox.dead-lettered")
+                .description("Число событий outbox, отложенных после исчерпания попыток доставки")
+                .register(meterRegistry);
+        this.deliveryDelay = Timer.builder("shareit.outbox.delivery.delay")
+                .description("Время от записи события в outbox до его доставки")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("shareit.outbox.pending", pending, AtomicLong::get)
+                .description("Число недоставленных событий outbox")
+                .register(meterRegistry);
+        Gauge.builder("shareit.outbox.lag.seconds", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Возраст самого старого недоставленного события outbox")
+                .register(meterRegistry);
+        Gauge.builder("shareit.outbox.dead-letter", deadLetters, AtomicLong::get)
+                .description("Число отложенных событий outbox, требующих разбора")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        int delivered = 0;
+        List<OutboxEvent> batch;
+
+        //Выбираем пакеты, пока очередь не опустеет или хотя бы одно событие пакета не будет доставлено
+        do {
+            batch = transactionTemplate.execute(status -> outboxEventRepository.findPending(Limit.of(batchSize)));
+
+            if (batch == null || batch.isEmpty() || !deliver(batch)) {
+                break;
+            }
+
+            delivered += batch.size();
+        } while (batch.size() == batchSize);
+
+        updateLag();
+
+        if (delivered > 0) {
+            log.info("Доставлено {} событий outbox", delivered);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.outbox.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minus(retention)));
+
+        log.info("Удалено {} доставленных событий outbox", deleted);
+    }
+
+    private boolean deliver(List<OutboxEvent> batch) {
+        List<OutboxMessage> messages = batch.stream().map(this::toMessage).toList();
+
+        //Событие отмечается доставленным только после всех получателей, при сбое пакет разбирается по одному
+        for (OutboxSink sink : sinks) {
+            try {
+                sink.publish(messages);
+            } catch (RuntimeException e) {
+                log.warn("Не удалось доставить {} событий outbox получателю {}, доставляем по одному",
+                        batch.size(), sink.getName(), e);
+
+                return deliverOneByOne(batch);
+            }
+        }
+
+        markPublished(batch);
+
+        return true;
+    }
+
+    //Одно недоставляемое событие не должно задерживать весь пакет, получатели отбрасывают повторы по ключу
+    private boolean deliverOneByOne(List<OutboxEvent> batch) {
+        List<OutboxEvent> delivered = new ArrayList<>();
+        List<Long> failedEventsId = new ArrayList<>();
+
+        for (OutboxEvent event : batch) {
+            if (publishToAllSinks(event)) {
+                delivered.add(event);
+            } else {
+                failedEventsId.add(event.getId());
+            }
+        }
+
+        if (!delivered.isEmpty()) {
+            markPublished(delivered);
+        }
+
+        if (failedEventsId.isEmpty()) {
+            return true;
+        }
+
+        failedCounter.increment(failedEventsId.size());
+
+        Integer parked = transactionTemplate.execute(status -> {
+            outboxEventRepository.incrementAttempts(failedEventsId);
+
+            return outboxEventRepository.markFailed(failedEventsId, maxAttempts, LocalDateTime.now());
+        });
+
+        if (parked != null && parked > 0) {
+            log.error("{} событий outbox не доставлены за {} попыток и отложены", parked, maxAttempts);
+
+            deadLetterCounter.increment(parked);
+        }
+
+        return false;
+    }
+
+    private boolean publishToAllSinks(OutboxEvent event) {
+        List<OutboxMessage> message = List.of(toMessage(event));
+
+        for (OutboxSink sink : sinks) {
+            try {
+                sink.publish(message);
+            } catch (RuntimeException e) {
+                log.warn("Не удалось доставить событие outbox с id: {} получателю {}", event.getId(), sink.getName(), e);
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void markPublished(List<OutboxEvent> events) {
+        List<Long> eventsId = events.stream().map(OutboxEvent::getId).toList();
+        LocalDateTime published = LocalDateTime.now();
+
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.markPublished(eventsId, published));
+
+        publishedCounter.increment(events.size());
+        events.forEach(event -> deliveryDelay.record(Duration.between(event.getCreated(), published)));
+    }
+
+    private OutboxMessage toMessage(OutboxEvent event) {
+        return new OutboxMessage(event.getDedupeKey(), event.getAggregateType(), event.getAggregateId(),
+                event.getEventType(), event.getPayload(), event.getCreated());
+    }
+
+    private void updateLag() {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime oldest = outboxEventRepository.findOldestPendingCreated();
+
+            pending.set(outboxEventRepository.countByPublishedIsNullAndFailedIsNull());
+            deadLetters.set(outboxEventRepository.countByFailedIsNotNull());
+            lagMillis.set(oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis());
+        });
+    }
+}
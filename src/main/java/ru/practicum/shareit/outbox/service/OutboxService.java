@@ -0,0 +1,6 @@
+package ru.practicum.shareit.outbox.service;
+
+public interface OutboxService {
+
+    public void append(String aggregateType, Long aggregateId, String eventType, Object payload);
+}
@@ -0,0 +1,48 @@
+package ru.practicum.shareit.outbox.sink;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.outbox.dto.OutboxMessage;
+
+import java.util.List;
+
+//Публикует события внутри процесса как события Spring, подписка через @EventListener(OutboxMessage.class)
+@Component
+@ConditionalOnProperty(name = "shareit.outbox.local-sink.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class LocalOutboxSink implements OutboxSink {
+
+    private static final int DEDUPE_CACHE_SIZE = 100_000;
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache<String, Boolean> deliveredKeys = Caffeine.newBuilder()
+            .maximumSize(DEDUPE_CACHE_SIZE)
+            .build();
+
+    public LocalOutboxSink(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    @Override
+    public void publish(List<OutboxMessage> messages) {
+        for (OutboxMessage message : messages) {
+            //Повторная доставка после сбоя диспетчера не должна дойти до подписчиков дважды
+            if (deliveredKeys.getIfPresent(message.dedupeKey()) != null) {
+                log.debug("Повторное событие {} пропущено", message.dedupeKey());
+                continue;
+            }
+
+            eventPublisher.publishEvent(message);
+            deliveredKeys.put(message.dedupeKey(), Boolean.TRUE);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.outbox.sink;
+
+import ru.practicum.shareit.outbox.dto.OutboxMessage;
+
+import java.util.List;
+
+//Получатель событий из outbox, доставка не реже одного раза, повторы отбрасываются по dedupeKey
+public interface OutboxSink {
+
+    public String getName();
+
+    public void publish(List<OutboxMessage> messages);
+}
@@ -1,9 +1,42 @@
 package ru.practicum.shareit.request.controller;
 
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestPage;
+import ru.practicum.shareit.request.service.ItemRequestService;
+
+import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping(path = "/requests")
+@RequiredArgsConstructor
 public class ItemRequestController {
+    private final ItemRequestService itemRequestService;
+    private final String headerName = "X-Sharer-User-Id";
+
+    @PostMapping
+    public ItemRequestDto addRequest(@RequestBody ItemRequestDto itemRequestDto,
+                                     @RequestHeader(headerName) Optional<Long> optionalUserId) {
+        return itemRequestService.addRequest(itemRequestDto, optionalUserId);
+    }
+
+    @GetMapping
+    public List<ItemRequestDto> getOwnRequests(@RequestHeader(headerName) Optional<Long> optionalUserId) {
+        return itemRequestService.getOwnRequests(optionalUserId);
+    }
+
+    @GetMapping("/all")
+    public ItemRequestPage getOtherRequests(@RequestHeader(headerName) Optional<Long> optionalUserId,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "20") Integer limit) {
+        return itemRequestService.getOtherRequests(optionalUserId, cursor, limit);
+    }
+
+    @GetMapping("/{requestId}")
+    public ItemRequestDto getRequest(@RequestHeader(headerName) Optional<Long> optionalUserId,
+                                     @PathVariable Long requestId) {
+        return itemRequestService.getRequest(optionalUserId, requestId);
+    }
 }
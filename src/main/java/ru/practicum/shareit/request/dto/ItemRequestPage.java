@@ -0,0 +1,11 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ItemRequestPage {
+    private List<ItemRequestDto> requests;
+    private String nextCursor;
+}
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.request.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.factory.Mappers;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.ItemAnswerDto;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+
+import java.util.List;
+
+@Mapper
+public interface ItemRequestMapper {
+    ItemRequestMapper INSTANCE = Mappers.getMapper(ItemRequestMapper.class);
+
+    @Mapping(target = "id", source = "requestId")
+    @Mapping(target = "items", ignore = true)
+    ItemRequestDto toItemRequestDto(ItemRequest itemRequest);
+
+    @Mapping(target = "ownerId", source = "owner.id")
+    ItemAnswerDto toItemAnswerDto(Item item);
+
+    List<ItemAnswerDto> toItemAnswerDtoList(List<Item> items);
+}
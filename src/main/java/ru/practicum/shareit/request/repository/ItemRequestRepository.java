@@ -0,0 +1,22 @@
+package ru.practicum.shareit.request.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.request.model.ItemRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
+
+    @Query("SELECT r FROM ItemRequest r WHERE r.requester.id = ?1 ORDER BY r.created DESC, r.requestId DESC")
+    List<ItemRequest> findAllByRequesterId(Long requesterId);
+
+    //Постраничное получение чужих запросов по курсору (created, id) от новых к старым
+    @Query("SELECT r FROM ItemRequest r WHERE r.requester.id <> ?1 AND " +
+            "(r.created < ?2 OR (r.created = ?2 AND r.requestId < ?3)) ORDER BY r.created DESC, r.requestId DESC")
+    List<ItemRequest> findPageByOtherRequesters(Long userId, LocalDateTime cursorCreated, Long cursorId, Limit limit);
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.request.service;
+
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestPage;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ItemRequestService {
+
+    public ItemRequestDto addRequest(ItemRequestDto itemRequestDto, Optional<Long> optionalUserId);
+
+    public List<ItemRequestDto> getOwnRequests(Optional<Long> optionalUserId);
+
+    public ItemRequestPage getOtherRequests(Optional<Long> optionalUserId, String cursor, Integer limit);
+
+    public ItemRequestDto getRequest(Optional<Long> optionalUserId, Long requestId);
+}
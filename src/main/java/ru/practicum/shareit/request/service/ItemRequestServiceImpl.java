@@ -0,0 +1,148 @@
+package ru.practicum.shareit.request.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.exceptions.BadRequestException;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestPage;
+import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Qualifier("ItemRequestServiceImpl")
+@Slf4j
+public class ItemRequestServiceImpl implements ItemRequestService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemRepository itemRepository;
+    private final UserService userService;
+
+    @Override
+    public ItemRequestDto addRequest(ItemRequestDto itemRequestDto, Optional<Long> optionalUserId) {
+
+        Long userId = optionalUserId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        if (itemRequestDto.getDescription() == null || itemRequestDto.getDescription().isBlank()) {
+            throw new BadRequestException("Описание запроса не должно быть пустым");
+        }
+
+        User requester = userService.getUser(userId);
+
+        ItemRequest itemRequest = new ItemRequest();
+
+        itemRequest.setDescription(itemRequestDto.getDescription());
+        itemRequest.setRequester(requester);
+        itemRequest.setCreated(LocalDateTime.now());
+
+        itemRequestRepository.save(itemRequest);
+
+        log.info("Добавлен запрос вещи от пользователя с id: {}", userId);
+
+        return toDtoWithItems(List.of(itemRequest)).get(0);
+    }
+
+    @Override
+    public List<ItemRequestDto> getOwnRequests(Optional<Long> optionalUserId) {
+
+        Long userId = optionalUserId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        //Для несуществующего пользователя возвращаем 404, а не пустой список
+        userService.getUser(userId);
+
+        log.info("Получение списка запросов пользователя с id: {}", userId);
+
+        return toDtoWithItems(itemRequestRepository.findAllByRequesterId(userId));
+    }
+
+    @Override
+    public ItemRequestPage getOtherRequests(Optional<Long> optionalUserId, String cursor, Integer limit) {
+
+        Long userId = optionalUserId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        //Для несуществующего пользователя возвращаем 404, а не чужие запросы
+        userService.getUser(userId);
+
+        if (limit == null || limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+
+        ItemRequestCursor after = ItemRequestCursor.decode(cursor);
+
+        List<ItemRequest> requests = itemRequestRepository.findPageByOtherRequesters(userId, after.created(),
+                after.id(), Limit.of(limit));
+
+        ItemRequestPage page = new ItemRequestPage();
+        page.setRequests(toDtoWithItems(requests));
+
+        //Если страница заполнена полностью, отдаем курсор на последний запрос
+        if (requests.size() == limit) {
+            ItemRequest last = requests.get(requests.size() - 1);
+            page.setNextCursor(new ItemRequestCursor(last.getCreated(), last.getRequestId()).encode());
+        }
+
+        log.info("Получение страницы запросов других пользователей для пользователя с id: {}", userId);
+
+        return page;
+    }
+
+    @Override
+    public ItemRequestDto getRequest(Optional<Long> optionalUserId, Long requestId) {
+
+        Long userId = optionalUserId.orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        userService.getUser(userId);
+
+        ItemRequest itemRequest = itemRequestRepository.findById(requestId)
+                .orElseThrow(() -> new NotFoundException("Запрос с таким id не найден"));
+
+        log.info("Получен запрос вещи с id: {}", requestId);
+
+        return toDtoWithItems(List.of(itemRequest)).get(0);
+    }
+
+    //Вещи-ответы для всех запросов получаем одним запросом к БД
+    private List<ItemRequestDto> toDtoWithItems(List<ItemRequest> requests) {
+
+        if (requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> requestsId = requests.stream().map(ItemRequest::getRequestId).toList();
+
+        Map<Long, List<Item>> answers = itemRepository.findAllByRequestIdIn(requestsId)
+                .stream()
+                .collect(Collectors.groupingBy(Item::getRequestId));
+
+        List<ItemRequestDto> requestsDto = new ArrayList<>();
+
+        for (ItemRequest request : requests) {
+            ItemRequestDto requestDto = ItemRequestMapper.INSTANCE.toItemRequestDto(request);
+            requestDto.setItems(ItemRequestMapper.INSTANCE.toItemAnswerDtoList(
+                    answers.getOrDefault(request.getRequestId(), new ArrayList<>())));
+
+            requestsDto.add(requestDto);
+        }
+
+        return requestsDto;
+    }
+}
@@ -0,0 +1,5 @@
+package ru.practicum.shareit.user.dto;
+
+//Неизменяемый снимок пользователя для кэша users, общий для всех потоков
+public record UserSnapshot(Long id, String name, String email, Long version) {
+}
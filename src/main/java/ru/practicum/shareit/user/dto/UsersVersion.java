@@ -0,0 +1,9 @@
+package ru.practicum.shareit.user.dto;
+
+public interface UsersVersion {
+    Long getCount();
+
+    Long getVersionSum();
+
+    Long getMaxId();
+}
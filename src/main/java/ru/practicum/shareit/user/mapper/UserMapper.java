@@ -1,8 +1,10 @@
 package ru.practicum.shareit.user.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserSnapshot;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.List;
@@ -13,7 +15,10 @@ public interface UserMapper {
 
     UserDto toUserDto(User user);
 
+    @Mapping(target = "version", ignore = true)
     User toUser(UserDto userDto);
 
+    User toUser(UserSnapshot userSnapshot);
+
     List<UserDto> toUserDtoList(List<User> users);
 }
@@ -1,9 +1,29 @@
 package ru.practicum.shareit.user.repository;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.user.dto.UserSnapshot;
+import ru.practicum.shareit.user.dto.UsersVersion;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.Optional;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    //В кэше лежит неизменяемый снимок, а не сущность; отсутствующие пользователи не кэшируются
+    @Cacheable(cacheNames = "users", key = "#p0", unless = "#result == null")
+    @Query("SELECT new ru.practicum.shareit.user.dto.UserSnapshot(u.id, u.name, u.email, u.version) FROM User u WHERE u.id = ?1")
+    Optional<UserSnapshot> findSnapshotById(Long id);
+
+    //Сравнение через lower(), как в уникальном индексе PostgreSQL ux_users_email_lower, чтобы запрос использовал индекс
+    @Query("SELECT CASE WHEN COUNT(u) > 0 THEN true ELSE false END FROM User u WHERE lower(u.email) = lower(?1)")
+    boolean existsByEmailIgnoreCase(String email);
+
+    @Query("SELECT CASE WHEN COUNT(u) > 0 THEN true ELSE false END FROM User u WHERE lower(u.email) = lower(?1) AND u.id <> ?2")
+    boolean existsByEmailIgnoreCaseAndIdNot(String email, Long id);
+
+    @Query("SELECT COUNT(u) AS count, COALESCE(SUM(u.version), 0) AS versionSum, COALESCE(MAX(u.id), 0) AS maxId FROM User u")
+    UsersVersion findUsersVersion();
 }
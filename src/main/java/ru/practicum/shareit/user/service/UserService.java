@@ -12,6 +12,8 @@ public interface UserService {
 
     public List<UserDto> getUsersDto();
 
+    public String getUsersETag();
+
     public User createUser(UserDto user);
 
     public User updateUser(UserDto user, Long id);
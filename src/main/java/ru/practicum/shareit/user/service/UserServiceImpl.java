@@ -4,10 +4,16 @@ import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exceptions.ConflictException;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserSnapshot;
+import ru.practicum.shareit.user.dto.UsersVersion;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
@@ -23,16 +29,19 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
 
+    //Снимок берется из кэша users, каждый вызов получает собственный экземпляр User
     @Override
     public User getUser(Long id) {
-        Optional<User> user = userRepository.findById(id);
+        Optional<UserSnapshot> user = userRepository.findSnapshotById(id);
 
         log.info("Получили пользователя с id: {}", id);
 
-        return user.orElseThrow(() -> new NotFoundException("Пользователь с таким id не найден"));
+        return user.map(UserMapper.INSTANCE::toUser)
+                .orElseThrow(() -> new NotFoundException("Пользователь с таким id не найден"));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserDto> getUsersDto() {
         List<User> users = userRepository.findAll();
 
@@ -41,6 +50,15 @@ public class UserServiceImpl implements UserService {
         return UserMapper.INSTANCE.toUserDtoList(users);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public String getUsersETag() {
+        //Количество, сумма версий и максимальный id меняются при любом создании, изменении или удалении
+        UsersVersion usersVersion = userRepository.findUsersVersion();
+
+        return usersVersion.getCount() + "-" + usersVersion.getVersionSum() + "-" + usersVersion.getMaxId();
+    }
+
     @Override
     public User createUser(UserDto user) {
 
@@ -48,20 +66,27 @@ public class UserServiceImpl implements UserService {
             throw new ValidationException("Имя или почта пользователя не должны быть null");
         }
 
-        checkConflicts(user);
+        checkConflicts(user, null);
 
         User addedUser = UserMapper.INSTANCE.toUser(user);
 
         log.info("Добавили нового пользователя");
 
-        return userRepository.save(addedUser);
+        return saveUser(addedUser);
     }
 
+    //Кэш очищается до и после изменения: чтение, начатое до сохранения, не оставит в кэше старый снимок надолго
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "users", key = "#id", beforeInvocation = true),
+            @CacheEvict(cacheNames = "users", key = "#id")
+    })
     public User updateUser(UserDto user, Long id) {
-        checkConflicts(user);
+        checkConflicts(user, id);
 
-        User updatedUser = getUser(id);
+        //Изменяем сущность из БД, а не экземпляр из кэша
+        User updatedUser = userRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Пользователь с таким id не найден"));
 
         // Если на входе указано только имя
         if (user.getEmail() == null) {
@@ -79,7 +104,7 @@ public class UserServiceImpl implements UserService {
             updatedUser.setEmail(user.getEmail());
         }
 
-        userRepository.save(updatedUser);
+        saveUser(updatedUser);
 
         log.info("Обновили пользователя с id: {}", id);
 
@@ -87,23 +112,39 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "users", key = "#id", beforeInvocation = true),
+            @CacheEvict(cacheNames = "users", key = "#id")
+    })
     public void deleteUser(Long id) {
         log.info("Удалили пользователя с id: {}", id);
         userRepository.deleteById(id);
     }
 
-    public void checkConflicts(UserDto userDto) {
+    public void checkConflicts(UserDto userDto, Long id) {
 
-        // Проверяем одинаковые Email
+        // Проверяем одинаковые Email без учета регистра
         String checkedEmail = userDto.getEmail();
 
-        List<User> users = userRepository.findAll();
+        if (checkedEmail == null) {
+            return;
+        }
 
-        boolean isConflicted = users.stream().anyMatch(u -> u.getEmail().equals(checkedEmail));
+        boolean isConflicted = id == null
+                ? userRepository.existsByEmailIgnoreCase(checkedEmail)
+                : userRepository.existsByEmailIgnoreCaseAndIdNot(checkedEmail, id);
 
         if (isConflicted) {
             throw new ConflictException("Email пользователя совпадает с существующим");
         }
     }
-}
 
+    //Проверка выше не защищает от одновременных запросов, окончательно уникальность проверяет индекс в БД
+    private User saveUser(User user) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Email или имя пользователя совпадает с существующим");
+        }
+    }
+}
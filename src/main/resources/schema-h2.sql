@@ -0,0 +1,4 @@
+-- Выполняется после schema.sql только на H2 (тесты и бенчмарки).
+-- В H2 нет индексов по выражению, поэтому уникальность lower(email) держится на вычисляемом столбце.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS email_lower VARCHAR(50) GENERATED ALWAYS AS (LOWER(email));
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_email_lower ON users (email_lower);
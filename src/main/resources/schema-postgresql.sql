@@ -0,0 +1,13 @@
+-- Выполняется после schema.sql только на PostgreSQL.
+-- Последовательности сдвигаются за максимальные id, оставшиеся от IDENTITY-столбцов.
+-- Значение никогда не уменьшается, поэтому повторный запуск не выдает уже занятые блоки id.
+SELECT setval('users_seq', GREATEST((SELECT last_value FROM users_seq), (SELECT COALESCE(MAX(user_id), 1) FROM users)), true);
+SELECT setval('requests_seq', GREATEST((SELECT last_value FROM requests_seq), (SELECT COALESCE(MAX(request_id), 1) FROM requests)), true);
+SELECT setval('items_seq', GREATEST((SELECT last_value FROM items_seq), (SELECT COALESCE(MAX(item_id), 1) FROM items)), true);
+SELECT setval('bookings_seq', GREATEST((SELECT last_value FROM bookings_seq), (SELECT COALESCE(MAX(booking_id), 1) FROM bookings)), true);
+SELECT setval('comments_seq', GREATEST((SELECT last_value FROM comments_seq), (SELECT COALESCE(MAX(comment_id), 1) FROM comments)), true);
+SELECT setval('outbox_seq', GREATEST((SELECT last_value FROM outbox_seq), (SELECT COALESCE(MAX(event_id), 1) FROM outbox_events)), true);
+
+-- Email уникален без учета регистра. Если в БД уже есть адреса, отличающиеся только регистром,
+-- создание индекса остановит запуск: дубликаты нужно разобрать вручную до обновления (см. README).
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_email_lower ON users (lower(email));
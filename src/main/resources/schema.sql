@@ -4,23 +4,30 @@
 --DROP TABLE If EXISTS bookings CASCADE;
 --DROP TABLE IF EXISTS comments CASCADE;
 
+-- Идентификаторы выдаются последовательностями блоками по 50 (оптимизатор pooled-lo)
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comments_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS outbox_seq START WITH 1 INCREMENT BY 50;
 
 CREATE TABLE IF NOT EXISTS users (
-    user_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT PRIMARY KEY,
     name VARCHAR(50) NOT NULL,
     email VARCHAR(50) NOT NULL,
     CONSTRAINT unique_name UNIQUE (name)
 );
 
 CREATE TABLE IF NOT EXISTS requests (
-    request_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    request_id BIGINT PRIMARY KEY,
     description VARCHAR(250),
     requester_id BIGINT REFERENCES users(user_id),
     created TIMESTAMP WITHOUT TIME ZONE
 );
 
 CREATE TABLE IF NOT EXISTS items (
-    item_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    item_id BIGINT PRIMARY KEY,
     name VARCHAR(50) UNIQUE,
     description VARCHAR(250),
     owner_id BIGINT REFERENCES users(user_id),
@@ -29,7 +36,7 @@ CREATE TABLE IF NOT EXISTS items (
 );
 
 CREATE TABLE IF NOT EXISTS bookings (
-    booking_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    booking_id BIGINT PRIMARY KEY,
     start_date TIMESTAMP WITHOUT TIME ZONE,
     end_date TIMESTAMP WITHOUT TIME ZONE,
     item_id BIGINT REFERENCES items(item_id),
@@ -38,9 +45,75 @@ CREATE TABLE IF NOT EXISTS bookings (
 );
 
 CREATE TABLE IF NOT EXISTS comments (
-    comment_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    comment_id BIGINT PRIMARY KEY,
     text VARCHAR(250),
     created TIMESTAMP WITHOUT TIME ZONE,
     author_name VARCHAR(50),
     item_id BIGINT REFERENCES items(item_id)
-);
\ No newline at end of file
+);
+
+-- События для фоновой доставки, пишутся в одной транзакции с изменением бронирования
+CREATE TABLE IF NOT EXISTS outbox_events (
+    event_id BIGINT PRIMARY KEY,
+    dedupe_key VARCHAR(36) NOT NULL,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload VARCHAR(2000),
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    published TIMESTAMP WITHOUT TIME ZONE,
+    attempts INTEGER DEFAULT 0 NOT NULL,
+    CONSTRAINT unique_dedupe_key UNIQUE (dedupe_key)
+);
+
+-- Счетчики бронирований владельца по состояниям для GET /bookings/owner/summary
+CREATE TABLE IF NOT EXISTS owner_booking_counters (
+    owner_id BIGINT PRIMARY KEY,
+    total_count BIGINT DEFAULT 0 NOT NULL,
+    waiting_count BIGINT DEFAULT 0 NOT NULL,
+    rejected_count BIGINT DEFAULT 0 NOT NULL,
+    current_count BIGINT DEFAULT 0 NOT NULL,
+    future_count BIGINT DEFAULT 0 NOT NULL,
+    past_count BIGINT DEFAULT 0 NOT NULL
+);
+
+-- Версии строк для ETag и оптимистической блокировки
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+-- Фаза бронирования (FUTURE, CURRENT, PAST), пустые значения заполняются при первом проходе BookingPhaseSweeper
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS phase VARCHAR(10);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start ON bookings (item_id, start_date);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_item_end ON bookings (item_id, end_date);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_date, booking_id);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_email ON users (email);
+
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (owner_id);
+
+CREATE INDEX IF NOT EXISTS idx_items_request ON items (request_id);
+
+CREATE INDEX IF NOT EXISTS idx_requests_requester_created ON requests (requester_id, created);
+
+CREATE INDEX IF NOT EXISTS idx_requests_created ON requests (created, request_id);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_item_end ON bookings (booker_id, item_id, end_date);
+
+CREATE INDEX IF NOT EXISTS idx_comments_item_created ON comments (item_id, created);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_phase ON bookings (booker_id, phase, start_date, booking_id);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_start ON bookings (start_date);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_end ON bookings (end_date);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_published ON outbox_events (published, event_id);
+
+-- Время, когда событие исчерпало попытки доставки и было отложено
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS failed TIMESTAMP WITHOUT TIME ZONE;
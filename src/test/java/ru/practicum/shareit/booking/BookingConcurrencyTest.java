@@ -0,0 +1,133 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exceptions.ConflictException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.support.ConcurrentRunner;
+import ru.practicum.shareit.support.TestFixtures;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Одновременные пересекающиеся бронирования и подтверждения одной вещи: проходит не больше одного
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    @Qualifier("BookingServiceImpl")
+    private BookingService bookingService;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void onlyOneOverlappingBookingIsAdded() throws Exception {
+        User owner = fixtures.createUser("owner");
+        User booker = fixtures.createUser("booker");
+        Item item = fixtures.createItem(owner);
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime end = start.plusDays(1);
+
+        List<Outcome> outcomes = ConcurrentRunner.runTogether(THREADS, () -> attempt(() -> {
+            Booking booking = new Booking();
+            booking.setItemId(item.getId());
+            booking.setStart(start);
+            booking.setEnd(end);
+
+            bookingService.addBooking(booking, Optional.of(booker.getId()));
+        }));
+
+        assertThat(outcomes).filteredOn(Outcome.SUCCEEDED::equals).hasSize(1);
+        assertThat(outcomes).filteredOn(Outcome.CONFLICT::equals).hasSize(THREADS - 1);
+        assertThat(countBookings(item.getId(), "WAITING")).isOne();
+    }
+
+    @Test
+    void onlyOneOverlappingBookingIsApproved() throws Exception {
+        User owner = fixtures.createUser("owner");
+        User booker = fixtures.createUser("booker");
+        Item item = fixtures.createItem(owner);
+
+        //Ожидающие пересекающиеся бронирования через сервис не создать, поэтому пишем их в БД напрямую
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        List<Callable<Outcome>> approvals = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            long bookingId = fixtures.nextNumber();
+
+            jdbcTemplate.update("INSERT INTO bookings (booking_id, start_date, end_date, item_id, booker_id, status, phase) " +
+                            "VALUES (?, ?, ?, ?, ?, 'WAITING', 'FUTURE')",
+                    bookingId, start.plusHours(i), start.plusHours(i).plusDays(1), item.getId(), booker.getId());
+            approvals.add(() -> attempt(() -> bookingService.isApprovedBooking(bookingId, true, Optional.of(owner.getId()))));
+        }
+
+        List<Outcome> outcomes = ConcurrentRunner.runTogether(approvals);
+
+        assertThat(outcomes).filteredOn(Outcome.SUCCEEDED::equals).hasSize(1);
+        assertThat(outcomes).filteredOn(Outcome.CONFLICT::equals).hasSize(THREADS - 1);
+        assertThat(countBookings(item.getId(), "APPROVED")).isOne();
+    }
+
+    //Статус читается под блокировкой вещи, поэтому повторные подтверждения ничего не меняют и не пишут событий
+    @Test
+    void concurrentApprovalsOfOneBookingProduceOneEvent() throws Exception {
+        User owner = fixtures.createUser("owner");
+        User booker = fixtures.createUser("booker");
+        Item item = fixtures.createItem(owner);
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        long bookingId = fixtures.nextNumber();
+
+        jdbcTemplate.update("INSERT INTO bookings (booking_id, start_date, end_date, item_id, booker_id, status, phase) " +
+                        "VALUES (?, ?, ?, ?, ?, 'WAITING', 'FUTURE')",
+                bookingId, start, start.plusDays(1), item.getId(), booker.getId());
+
+        List<Outcome> outcomes = ConcurrentRunner.runTogether(THREADS,
+                () -> attempt(() -> bookingService.isApprovedBooking(bookingId, true, Optional.of(owner.getId()))));
+
+        assertThat(outcomes).containsOnly(Outcome.SUCCEEDED);
+        assertThat(countBookings(item.getId(), "APPROVED")).isOne();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE aggregate_type = 'BOOKING' AND aggregate_id = ? " +
+                "AND event_type = 'BOOKING_APPROVED'", Integer.class, bookingId)).isOne();
+    }
+
+    private Outcome attempt(Runnable action) {
+        try {
+            action.run();
+            return Outcome.SUCCEEDED;
+        } catch (ConflictException e) {
+            return Outcome.CONFLICT;
+        }
+    }
+
+    private int countBookings(Long itemId, String status) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings WHERE item_id = ? AND status = ?",
+                Integer.class, itemId, status);
+    }
+
+    private enum Outcome {
+        SUCCEEDED,
+        CONFLICT
+    }
+}
@@ -0,0 +1,150 @@
+package ru.practicum.shareit.booking;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.support.TestFixtures;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Число SQL-запросов списков не зависит от числа бронирований и вещей в ответе.
+//Фоновые задачи откладываются, чтобы их запросы не попадали в общую статистику Hibernate
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query_count;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "shareit.outbox.poll-interval-ms=3600000",
+        "shareit.booking.phase-sweep-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class BookingQueryCountTest {
+
+    @Autowired
+    @Qualifier("BookingServiceImpl")
+    private BookingService bookingService;
+
+    @Autowired
+    @Qualifier("ItemServiceImpl")
+    private ItemService itemService;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private User smallOwner;
+    private User largeOwner;
+    private User smallBooker;
+    private User largeBooker;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        smallOwner = fixtures.createUser("smallOwner");
+        largeOwner = fixtures.createUser("largeOwner");
+        smallBooker = fixtures.createUser("smallBooker");
+        largeBooker = fixtures.createUser("largeBooker");
+
+        addBookings(List.of(fixtures.createItem(smallOwner)), smallBooker, 2);
+
+        List<Item> largeItems = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            largeItems.add(fixtures.createItem(largeOwner));
+        }
+
+        addBookings(largeItems, largeBooker, 2);
+    }
+
+    @Test
+    void bookerBookingsUseConstantNumberOfStatements() {
+        long small = countStatements(() -> bookingService.getAllBookingsByBooker("ALL", Optional.of(smallBooker.getId())), 2);
+        long large = countStatements(() -> bookingService.getAllBookingsByBooker("ALL", Optional.of(largeBooker.getId())), 20);
+
+        assertThat(large).isEqualTo(small).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void ownerBookingsUseConstantNumberOfStatements() {
+        long small = countStatements(() -> bookingService.getAllBookingsByOwner("ALL", Optional.of(smallOwner.getId())), 2);
+        long large = countStatements(() -> bookingService.getAllBookingsByOwner("ALL", Optional.of(largeOwner.getId())), 20);
+
+        assertThat(large).isEqualTo(small).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void ownerItemsUseConstantNumberOfStatements() {
+        long small = countStatements(() -> itemService.getAllItemsWithTimeAndCommentsByOwner(Optional.of(smallOwner.getId())), 1);
+        long large = countStatements(() -> itemService.getAllItemsWithTimeAndCommentsByOwner(Optional.of(largeOwner.getId())), 10);
+
+        assertThat(large).isEqualTo(small).isLessThanOrEqualTo(3);
+    }
+
+    //Бронирующий и вещь после первого обращения берутся из кэша снимков, запросов за ними нет
+    @Test
+    void addBookingReadsBookerAndItemFromCache() {
+        Item item = fixtures.createItem(smallOwner);
+        LocalDateTime start = LocalDateTime.now().plusDays(10).truncatedTo(ChronoUnit.SECONDS);
+
+        bookingService.addBooking(newBooking(item, start), Optional.of(smallBooker.getId()));
+
+        statistics.clear();
+        bookingService.addBooking(newBooking(item, start.plusDays(2)), Optional.of(smallBooker.getId()));
+
+        assertThat(statistics.getQueries()).noneMatch(query -> query.contains("Snapshot"));
+    }
+
+    private long countStatements(Supplier<List<?>> call, int expectedSize) {
+        statistics.clear();
+
+        assertThat(call.get()).hasSize(expectedSize);
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Booking newBooking(Item item, LocalDateTime start) {
+        Booking booking = new Booking();
+
+        booking.setItemId(item.getId());
+        booking.setStart(start);
+        booking.setEnd(start.plusDays(1));
+
+        return booking;
+    }
+
+    private void addBookings(List<Item> items, User booker, int bookingsPerItem) {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+
+        for (Item item : items) {
+            for (int i = 0; i < bookingsPerItem; i++) {
+                Booking booking = new Booking();
+
+                booking.setItemId(item.getId());
+                booking.setStart(start.plusDays(2L * i));
+                booking.setEnd(start.plusDays(2L * i + 1));
+
+                bookingService.addBooking(booking, Optional.of(booker.getId()));
+            }
+        }
+    }
+}
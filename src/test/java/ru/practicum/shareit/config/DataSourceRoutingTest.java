@@ -0,0 +1,76 @@
+package ru.practicum.shareit.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Основная БД и реплика - две разные H2, поэтому по содержимому видно, куда ушел запрос
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing_primary;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "shareit.datasource.replica.enabled=true",
+        "shareit.datasource.replica.url=jdbc:h2:mem:routing_replica;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;"
+                + "INIT=RUNSCRIPT FROM 'classpath:schema.sql'",
+        "shareit.datasource.replica.username=sa",
+        "shareit.datasource.replica.password=password"
+})
+@ActiveProfiles("test")
+class DataSourceRoutingTest {
+
+    @Autowired
+    @Qualifier("UserServiceImpl")
+    private UserService userService;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private Environment environment;
+
+    @Test
+    void readOnlyTransactionsUseReplica() {
+        new JdbcTemplate(replicaDataSource).update(
+                "INSERT INTO users (user_id, name, email) VALUES (?, ?, ?)",
+                1_000_000L, "replicaOnly", "replica-only@mail.ru");
+
+        assertThat(userService.getUsersDto())
+                .extracting(UserDto::getEmail)
+                .contains("replica-only@mail.ru");
+        assertThat(countByEmail(primaryDataSource, "replica-only@mail.ru")).isZero();
+    }
+
+    @Test
+    void writesUsePrimary() {
+        UserDto user = new UserDto();
+        user.setName("routedToPrimary");
+        user.setEmail("routed-to-primary@mail.ru");
+
+        userService.createUser(user);
+
+        assertThat(countByEmail(primaryDataSource, "routed-to-primary@mail.ru")).isOne();
+        assertThat(countByEmail(replicaDataSource, "routed-to-primary@mail.ru")).isZero();
+    }
+
+    @Test
+    void openInViewIsDisabled() {
+        assertThat(environment.getProperty("spring.jpa.open-in-view", Boolean.class)).isFalse();
+    }
+
+    private static int countByEmail(DataSource dataSource, String email) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM users WHERE email = ?", Integer.class, email);
+    }
+}
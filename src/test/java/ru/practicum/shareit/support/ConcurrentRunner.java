@@ -0,0 +1,54 @@
+package ru.practicum.shareit.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+//Запускает задачи одновременно: каждая ждет общего сигнала, чтобы проверки в сервисах шли параллельно
+public final class ConcurrentRunner {
+
+    private ConcurrentRunner() {
+    }
+
+    public static <T> List<T> runTogether(int threads, Callable<T> task) throws InterruptedException {
+        return runTogether(Collections.nCopies(threads, task));
+    }
+
+    public static <T> List<T> runTogether(List<? extends Callable<T>> tasks) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch startGate = new CountDownLatch(1);
+
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    startGate.await();
+                    return task.call();
+                }));
+            }
+
+            startGate.countDown();
+
+            List<T> results = new ArrayList<>();
+
+            for (Future<T> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new AssertionError("Неожиданная ошибка в потоке", e.getCause());
+                }
+            }
+
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
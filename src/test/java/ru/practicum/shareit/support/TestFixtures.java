@@ -0,0 +1,52 @@
+package ru.practicum.shareit.support;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Создание пользователей и вещей через сервисы; имена уникальны, так как контексты тестов делят одну БД H2
+@Component
+public class TestFixtures {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong(System.nanoTime());
+
+    private final UserService userService;
+    private final ItemService itemService;
+
+    public TestFixtures(@Qualifier("UserServiceImpl") UserService userService,
+                        @Qualifier("ItemServiceImpl") ItemService itemService) {
+        this.userService = userService;
+        this.itemService = itemService;
+    }
+
+    public long nextNumber() {
+        return SEQUENCE.incrementAndGet();
+    }
+
+    public User createUser(String prefix) {
+        long number = nextNumber();
+        UserDto user = new UserDto();
+
+        user.setName(prefix + number);
+        user.setEmail(prefix.toLowerCase() + "-" + number + "@mail.ru");
+
+        return userService.createUser(user);
+    }
+
+    public Item createItem(User owner) {
+        Item item = new Item();
+
+        item.setName("item" + nextNumber());
+        item.setDescription("Вещь для тестов");
+        item.setAvailable(true);
+
+        return itemService.addItem(item, Optional.of(owner.getId()));
+    }
+}
@@ -0,0 +1,87 @@
+package ru.practicum.shareit.user;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.exceptions.ConflictException;
+import ru.practicum.shareit.support.ConcurrentRunner;
+import ru.practicum.shareit.support.TestFixtures;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Одновременные запросы проходят проверку existsByEmailIgnoreCase вместе, дубликат отсекает уникальный индекс по lower(email)
+@SpringBootTest
+@ActiveProfiles("test")
+class UserConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    @Qualifier("UserServiceImpl")
+    private UserService userService;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    //Половина потоков пишет адрес в другом регистре, уникальность проверяется по lower(email)
+    @Test
+    void onlyOneUserWithSameEmailIsCreated() throws Exception {
+        String email = "parallel-" + fixtures.nextNumber() + "@mail.ru";
+        List<Callable<Boolean>> creations = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            UserDto user = new UserDto();
+            user.setName("parallelUser" + fixtures.nextNumber());
+            user.setEmail(i % 2 == 0 ? email : email.toUpperCase());
+
+            creations.add(() -> create(user));
+        }
+
+        List<Boolean> created = ConcurrentRunner.runTogether(creations);
+
+        assertThat(created).filteredOn(Boolean::booleanValue).hasSize(1);
+        assertThat(countByEmailIgnoreCase(email)).isOne();
+    }
+
+    @Test
+    void emailDifferingOnlyInCaseIsConflict() {
+        String email = "Case-" + fixtures.nextNumber() + "@Mail.ru";
+
+        UserDto first = new UserDto();
+        first.setName("caseUser" + fixtures.nextNumber());
+        first.setEmail(email);
+
+        UserDto second = new UserDto();
+        second.setName("caseUser" + fixtures.nextNumber());
+        second.setEmail(email.toLowerCase());
+
+        assertThat(create(first)).isTrue();
+        assertThat(create(second)).isFalse();
+        assertThat(countByEmailIgnoreCase(email)).isOne();
+    }
+
+    private int countByEmailIgnoreCase(String email) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE LOWER(email) = LOWER(?)", Integer.class, email);
+    }
+
+    private boolean create(UserDto user) {
+        try {
+            userService.createUser(user);
+            return true;
+        } catch (ConflictException e) {
+            return false;
+        }
+    }
+}